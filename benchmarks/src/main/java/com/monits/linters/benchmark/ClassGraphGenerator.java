@@ -0,0 +1,93 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import com.monits.linters.bc.hierarchy.ClassHeader;
+import com.monits.linters.bc.hierarchy.ClassPathIndex;
+
+/**
+ * Generates class hierarchies in memory. Each chain has a given depth, with a set
+ * of siblings on each level, and descends from a framework Fragment, a support
+ * library Fragment or Object. The roots themselves are left out, as lint can't
+ * see the framework classes either.
+ */
+public final class ClassGraphGenerator {
+	/** The framework Fragment */
+	public static final String FRAGMENT = "android/app/Fragment";
+	/** The support library Fragment */
+	public static final String SUPPORT_FRAGMENT = "android/support/v4/app/Fragment";
+
+	private static final String PACKAGE = "com/monits/linters/benchmark/generated/";
+	private static final String OBJECT_CLASS = "java/lang/Object";
+	private static final String SERIALIZABLE = "java/io/Serializable";
+	private static final String[] ROOTS = { FRAGMENT, SUPPORT_FRAGMENT, OBJECT_CLASS };
+	private static final String[] JDK_TYPES = { "java/lang/StringBuilder", "java/util/ArrayList",
+		"java/util/HashMap", "java/lang/IllegalStateException" };
+
+	private ClassGraphGenerator() {
+		throw new AssertionError("Utility classes should not be instantiated");
+	}
+
+	/**
+	 * Generates a chain of classes for each root
+	 *
+	 * @param depth The number of levels of each chain
+	 * @param width The number of classes on each level
+	 * @return The index of the generated classes
+	 */
+	@Nonnull
+	public static ClassPathIndex generate(final int depth, final int width) {
+		final ClassPathIndex index = new ClassPathIndex();
+		for (int root = 0; root < ROOTS.length; root++) {
+			String superName = ROOTS[root];
+			for (int level = 0; level < depth; level++) {
+				for (int sibling = 0; sibling < width; sibling++) {
+					index.add(new ClassHeader(getName(root, level, sibling), superName,
+							Collections.singletonList(SERIALIZABLE)));
+				}
+				superName = getName(root, level, 0);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Lists the types instantiated by a typical app: every generated class, as many
+	 * JDK types, and the generated ones again as most types are created more than once.
+	 *
+	 * @param index The generated classes
+	 * @return The internal names of the instantiated types
+	 */
+	@Nonnull
+	public static List<String> getInstantiatedTypes(@Nonnull final ClassPathIndex index) {
+		final List<String> types = new ArrayList<>();
+		for (final String type : index.getClassNames()) {
+			types.add(type);
+			types.add(JDK_TYPES[types.size() % JDK_TYPES.length]);
+		}
+		types.addAll(index.getClassNames());
+		return types;
+	}
+
+	@Nonnull
+	private static String getName(final int root, final int level, final int sibling) {
+		return PACKAGE + "Root" + root + "Level" + level + "Class" + sibling;
+	}
+}
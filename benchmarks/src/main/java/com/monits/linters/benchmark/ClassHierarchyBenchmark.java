@@ -0,0 +1,185 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSet;
+import com.monits.linters.bc.hierarchy.ClassHierarchy;
+import com.monits.linters.bc.hierarchy.ClassPathIndex;
+import com.monits.linters.bc.hierarchy.SubtypeMatcher;
+
+/**
+ * Measures the Fragment checks of FactoryMethodDetector over a generated class graph,
+ * with each of the caching strategies. Each operation checks every instantiated type once.
+ * The findClassCalls counter is the number of classes resolved, per second as operations are.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassHierarchyBenchmark {
+	private static final Set<String> FRAGMENT_TYPE =
+			ImmutableSet.of(ClassGraphGenerator.SUPPORT_FRAGMENT, ClassGraphGenerator.FRAGMENT);
+
+	@Param({ "5", "20", "50" })
+	private int depth;
+
+	@Param({ "1", "10" })
+	private int width;
+
+	private ClassPathIndex index;
+	private List<String> instantiatedTypes;
+	private CountingTypeResolver resolver;
+	private ClassHierarchy sharedHierarchy;
+	private SubtypeMatcher fragmentMatcher;
+	private Set<String> fragmentDescendants;
+
+	/**
+	 * Counts the classes resolved by each benchmark.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters
+	public static class FindClassCounter {
+		public long findClassCalls;
+
+		/**
+		 * Resets the counter before each iteration
+		 */
+		@Setup(Level.Iteration)
+		public void reset() {
+			findClassCalls = 0;
+		}
+	}
+
+	/**
+	 * Generates the class graph and warms the shared caches, outside of the measurement
+	 */
+	@Setup
+	public void setUp() {
+		index = ClassGraphGenerator.generate(depth, width);
+		instantiatedTypes = ClassGraphGenerator.getInstantiatedTypes(index);
+		resolver = new CountingTypeResolver(index);
+		sharedHierarchy = new ClassHierarchy();
+		fragmentMatcher = new SubtypeMatcher(FRAGMENT_TYPE);
+		fragmentDescendants = new ClassHierarchy().getSubtypes(index, FRAGMENT_TYPE);
+	}
+
+	/**
+	 * Walks the whole hierarchy of every instantiated type, as done before any caching
+	 *
+	 * @param counter The counter of resolved classes
+	 * @return The number of Fragments found, so the work can't be optimized away
+	 */
+	@Benchmark
+	public int uncachedWalk(final FindClassCounter counter) {
+		final long before = resolver.getResolveCount();
+		int fragments = 0;
+		for (final String type : instantiatedTypes) {
+			if (new ClassHierarchy().getSupertypes(resolver, type).containsAny(FRAGMENT_TYPE)) {
+				fragments++;
+			}
+		}
+		counter.findClassCalls += resolver.getResolveCount() - before;
+		return fragments;
+	}
+
+	/**
+	 * Queries a hierarchy shared by every operation, as shared by all detectors of a lint run
+	 *
+	 * @param counter The counter of resolved classes
+	 * @return The number of Fragments found, so the work can't be optimized away
+	 */
+	@Benchmark
+	public int sharedHierarchy(final FindClassCounter counter) {
+		final long before = resolver.getResolveCount();
+		int fragments = 0;
+		for (final String type : instantiatedTypes) {
+			if (sharedHierarchy.getSupertypes(resolver, type).containsAny(FRAGMENT_TYPE)) {
+				fragments++;
+			}
+		}
+		counter.findClassCalls += resolver.getResolveCount() - before;
+		return fragments;
+	}
+
+	/**
+	 * Queries the shared hierarchy behind the cache of types known not to be Fragments
+	 *
+	 * @param counter The counter of resolved classes
+	 * @return The number of Fragments found, so the work can't be optimized away
+	 */
+	@Benchmark
+	public int negativeCache(final FindClassCounter counter) {
+		final long before = resolver.getResolveCount();
+		int fragments = 0;
+		for (final String type : instantiatedTypes) {
+			if (fragmentMatcher.matches(sharedHierarchy, resolver, type)) {
+				fragments++;
+			}
+		}
+		counter.findClassCalls += resolver.getResolveCount() - before;
+		return fragments;
+	}
+
+	/**
+	 * Looks up every instantiated type in the precomputed set of Fragment descendants
+	 *
+	 * @return The number of Fragments found, so the work can't be optimized away
+	 */
+	@Benchmark
+	public int precomputedLookup() {
+		int fragments = 0;
+		for (final String type : instantiatedTypes) {
+			if (fragmentDescendants.contains(type)) {
+				fragments++;
+			}
+		}
+		return fragments;
+	}
+
+	/**
+	 * Computes the set of Fragment descendants from scratch, as done once per project.
+	 * Every class comes from the index of the class path, so nothing goes through findClass.
+	 *
+	 * @return The number of Fragments found, so the work can't be optimized away
+	 */
+	@Benchmark
+	public int precomputeSubtypes() {
+		return new ClassHierarchy().getSubtypes(index, FRAGMENT_TYPE).size();
+	}
+
+	@Override
+	public String toString() {
+		return "ClassHierarchyBenchmark [ depth=" + depth + ", width=" + width + " ]";
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.benchmark;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.monits.linters.bc.hierarchy.ClassHeader;
+import com.monits.linters.bc.hierarchy.TypeResolver;
+
+/**
+ * Stand in for lint's findClass, counting how many classes are resolved.
+ */
+public class CountingTypeResolver implements TypeResolver {
+	private final TypeResolver delegate;
+	private long resolveCount;
+
+	/**
+	 * Creates a new CountingTypeResolver instance.
+	 *
+	 * @param delegate The resolver actually finding the classes
+	 */
+	public CountingTypeResolver(@Nonnull final TypeResolver delegate) {
+		this.delegate = delegate;
+	}
+
+	@CheckForNull
+	@Override
+	public ClassHeader resolve(@Nonnull final String internalName) {
+		resolveCount++;
+		return delegate.resolve(internalName);
+	}
+
+	public long getResolveCount() {
+		return resolveCount;
+	}
+
+	@Override
+	public String toString() {
+		return "CountingTypeResolver [ resolveCount=" + resolveCount + " ]";
+	}
+}
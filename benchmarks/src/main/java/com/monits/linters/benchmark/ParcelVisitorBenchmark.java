@@ -0,0 +1,169 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.benchmark;
+
+import static org.objectweb.asm.Opcodes.ASM5;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.android.tools.lint.LintCliClient;
+import com.android.tools.lint.LintCliFlags;
+import com.android.tools.lint.client.api.IssueRegistry;
+import com.android.tools.lint.client.api.LintDriver;
+import com.android.tools.lint.detector.api.ClassContext;
+import com.android.tools.lint.detector.api.Issue;
+import com.android.tools.lint.detector.api.Project;
+import com.monits.linters.bc.parcelable.ParcelClassAnalysis;
+import com.monits.linters.bc.parcelable.ParcelClassSummaryCache;
+import com.monits.linters.bc.parcelable.ParcelDetector;
+import com.monits.linters.bc.parcelable.models.ParcelEventLog;
+import com.monits.linters.bc.parcelable.models.ParcelFieldSequence;
+import com.monits.linters.bc.parcelable.visitors.ParcelClassVisitor;
+
+/**
+ * Measures the Parcel visitor pipeline over a generated hierarchy of Parcelable
+ * classes. Each operation analyzes every class of the hierarchy once.
+ * Run with {@code -prof gc} to get the allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParcelVisitorBenchmark {
+	@Param({ "10", "100", "1000" })
+	private int fieldCount;
+
+	@Param({ "0", "4" })
+	private int helperDepth;
+
+	@Param({ "1", "8" })
+	private int hierarchyDepth;
+
+	@Param({ "false", "true" })
+	private boolean dataflow;
+
+	private static final String CLIENT_NAME = "cli";
+
+	private List<ClassNode> classes;
+	private List<ClassContext> contexts;
+	private ParcelEventLog eventLog;
+
+	/**
+	 * Generates the analyzed classes, and the lint contexts to analyze them, outside of the measurement
+	 *
+	 * @throws IOException If the directory of the project can't be created
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		classes = ParcelableClassGenerator.generateHierarchy(hierarchyDepth, fieldCount, helperDepth);
+		eventLog = new ParcelEventLog();
+		contexts = createContexts(classes);
+	}
+
+	/**
+	 * Creates the context lint would give ParcelDetector for each class, as part
+	 * of an empty project. The classes are never written to it.
+	 */
+	private static List<ClassContext> createContexts(final List<ClassNode> classes) throws IOException {
+		final File dir = Files.createTempDirectory("parcel-benchmark").toFile();
+		dir.deleteOnExit();
+
+		final LintCliClient client = new LintCliClient(new LintCliFlags(), CLIENT_NAME);
+		final LintDriver driver = new LintDriver(new IssueRegistry() {
+			@Override
+			public List<Issue> getIssues() {
+				return Arrays.asList(ParcelDetector.MISSING_OR_OUT_OF_ORDER,
+						ParcelDetector.INCOMPATIBLE_READ_WRITE_TYPE);
+			}
+		}, client);
+		final Project project = client.getProject(dir, dir);
+
+		final List<ClassContext> contexts = new ArrayList<>(classes.size());
+		for (final ClassNode classNode : classes) {
+			final ClassWriter writer = new ClassWriter(0);
+			classNode.accept(writer);
+			contexts.add(new ClassContext(driver, project, null, new File(dir, classNode.name + ".class"),
+					null, dir, writer.toByteArray(), classNode, false, null));
+		}
+		return contexts;
+	}
+
+	/**
+	 * Records the Parcel traffic of each class
+	 *
+	 * @return The number of events recorded, so the work can't be optimized away
+	 */
+	@Benchmark
+	public int visitClasses() {
+		int events = 0;
+		for (final ClassNode classNode : classes) {
+			eventLog.clear();
+			new ParcelClassVisitor(ASM5, classNode, eventLog, dataflow).visitClass();
+			events += eventLog.size();
+		}
+		return events;
+	}
+
+	/**
+	 * Analyzes each class as ParcelDetector does, sharing a summary cache among
+	 * the whole hierarchy as in a lint run. The fields of the super class chain
+	 * of the last class are then resolved, as needed by a subclass calling super
+	 * on one side only.
+	 *
+	 * @return The number of fields in the chain, so the work can't be optimized away
+	 */
+	@Benchmark
+	public int analyzeClasses() {
+		final ParcelClassSummaryCache classSummaries = new ParcelClassSummaryCache(dataflow);
+		for (int i = 0; i < classes.size(); i++) {
+			new ParcelClassAnalysis(contexts.get(i), classes.get(i), eventLog, classSummaries, dataflow).analyze();
+		}
+
+		final ClassContext context = contexts.get(contexts.size() - 1);
+		final String leafName = classes.get(classes.size() - 1).name;
+		final ParcelFieldSequence writes = classSummaries.getFieldSequence(context, leafName,
+				ParcelEventLog.WRITE_FIELD);
+		final ParcelFieldSequence reads = classSummaries.getFieldSequence(context, leafName,
+				ParcelEventLog.READ_FIELD);
+		return (writes == null ? 0 : writes.size()) + (reads == null ? 0 : reads.size());
+	}
+
+	@Override
+	public String toString() {
+		return "ParcelVisitorBenchmark [ fieldCount=" + fieldCount + ", helperDepth=" + helperDepth
+				+ ", hierarchyDepth=" + hierarchyDepth + ", dataflow=" + dataflow + " ]";
+	}
+}
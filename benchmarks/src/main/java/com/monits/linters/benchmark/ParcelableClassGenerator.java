@@ -0,0 +1,193 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.benchmark;
+
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ASM5;
+import static org.objectweb.asm.Opcodes.GETFIELD;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.PUTFIELD;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V1_7;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.objectweb.asm.Label;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Generates Parcelable classes in memory, as lint would hand them to a detector.
+ * Fields are written and read in the same order, spread over a chain of private
+ * helper methods, and each class of a hierarchy delegates to its super class.
+ */
+public final class ParcelableClassGenerator {
+	private static final String PACKAGE = "com/monits/linters/benchmark/generated/";
+	private static final String OBJECT_CLASS = "java/lang/Object";
+	private static final String PARCEL = "android/os/Parcel";
+	private static final String PARCELABLE = "android/os/Parcelable";
+	private static final String STRING_DESC = "Ljava/lang/String;";
+	private static final String WRITE_TO_PARCEL = "writeToParcel";
+	private static final String WRITE_TO_PARCEL_DESC = "(Landroid/os/Parcel;I)V";
+	private static final String PARCEL_CONSTRUCTOR_DESC = "(Landroid/os/Parcel;)V";
+	private static final String CONSTRUCTOR = "<init>";
+	private static final String HELPER_DESC = "(Landroid/os/Parcel;)V";
+
+	private ParcelableClassGenerator() {
+		throw new AssertionError("Utility classes should not be instantiated");
+	}
+
+	/**
+	 * Generates a hierarchy of Parcelable classes, the root first
+	 *
+	 * @param depth The number of classes in the hierarchy
+	 * @param fieldCount The number of fields of each class
+	 * @param helperDepth The number of nested helper methods used to write and read the fields
+	 * @return The generated classes
+	 */
+	@Nonnull
+	public static List<ClassNode> generateHierarchy(final int depth, final int fieldCount,
+			final int helperDepth) {
+		final List<ClassNode> classes = new ArrayList<>(depth);
+		String superName = null;
+		for (int i = 0; i < depth; i++) {
+			final String name = PACKAGE + "Model" + i;
+			classes.add(generateClass(name, superName, fieldCount, helperDepth));
+			superName = name;
+		}
+		return classes;
+	}
+
+	/**
+	 * Generates a single Parcelable class
+	 *
+	 * @param name The internal name of the class
+	 * @param superName The internal name of the Parcelable super class, or null
+	 * 		if the class implements Parcelable itself
+	 * @param fieldCount The number of fields of the class
+	 * @param helperDepth The number of nested helper methods used to write and read the fields
+	 * @return The generated class
+	 */
+	@Nonnull
+	public static ClassNode generateClass(@Nonnull final String name, final String superName,
+			final int fieldCount, final int helperDepth) {
+		final boolean root = superName == null;
+		final ClassNode classNode = new ClassNode(ASM5);
+		classNode.version = V1_7;
+		classNode.access = ACC_PUBLIC;
+		classNode.name = name;
+		classNode.superName = root ? OBJECT_CLASS : superName;
+		classNode.interfaces = root ? Collections.singletonList(PARCELABLE) : Collections.<String>emptyList();
+
+		for (int i = 0; i < fieldCount; i++) {
+			classNode.fields.add(new FieldNode(ASM5, ACC_PRIVATE, getFieldName(i), STRING_DESC, null, null));
+		}
+
+		final LineCounter lines = new LineCounter();
+		final int methodCount = helperDepth + 1;
+		for (int i = 0; i < methodCount; i++) {
+			final int from = i * fieldCount / methodCount;
+			final int to = (i + 1) * fieldCount / methodCount;
+			final String next = i + 1 < methodCount ? "writeFields" + (i + 1) : null;
+			final MethodNode writer = i == 0
+					? new MethodNode(ASM5, ACC_PUBLIC, WRITE_TO_PARCEL, WRITE_TO_PARCEL_DESC, null, null)
+					: new MethodNode(ASM5, ACC_PRIVATE, "writeFields" + i, HELPER_DESC, null, null);
+			writer.visitCode();
+			if (i == 0 && !root) {
+				lines.visitLine(writer);
+				writer.visitVarInsn(ALOAD, 0);
+				writer.visitVarInsn(ALOAD, 1);
+				writer.visitVarInsn(ILOAD, 2);
+				writer.visitMethodInsn(INVOKESPECIAL, superName, WRITE_TO_PARCEL, WRITE_TO_PARCEL_DESC, false);
+			}
+			for (int field = from; field < to; field++) {
+				lines.visitLine(writer);
+				writer.visitVarInsn(ALOAD, 1);
+				writer.visitVarInsn(ALOAD, 0);
+				writer.visitFieldInsn(GETFIELD, name, getFieldName(field), STRING_DESC);
+				writer.visitMethodInsn(INVOKEVIRTUAL, PARCEL, "writeString", "(Ljava/lang/String;)V", false);
+			}
+			visitHelperCall(writer, name, next, lines);
+			classNode.methods.add(writer);
+
+			final String nextReader = next == null ? null : "readFields" + (i + 1);
+			final MethodNode reader = i == 0
+					? new MethodNode(ASM5, ACC_PUBLIC, CONSTRUCTOR, PARCEL_CONSTRUCTOR_DESC, null, null)
+					: new MethodNode(ASM5, ACC_PRIVATE, "readFields" + i, HELPER_DESC, null, null);
+			reader.visitCode();
+			if (i == 0) {
+				lines.visitLine(reader);
+				reader.visitVarInsn(ALOAD, 0);
+				if (root) {
+					reader.visitMethodInsn(INVOKESPECIAL, OBJECT_CLASS, CONSTRUCTOR, "()V", false);
+				} else {
+					reader.visitVarInsn(ALOAD, 1);
+					reader.visitMethodInsn(INVOKESPECIAL, superName, CONSTRUCTOR, PARCEL_CONSTRUCTOR_DESC, false);
+				}
+			}
+			for (int field = from; field < to; field++) {
+				lines.visitLine(reader);
+				reader.visitVarInsn(ALOAD, 0);
+				reader.visitVarInsn(ALOAD, 1);
+				reader.visitMethodInsn(INVOKEVIRTUAL, PARCEL, "readString", "()Ljava/lang/String;", false);
+				reader.visitFieldInsn(PUTFIELD, name, getFieldName(field), STRING_DESC);
+			}
+			visitHelperCall(reader, name, nextReader, lines);
+			classNode.methods.add(reader);
+		}
+		return classNode;
+	}
+
+	private static void visitHelperCall(@Nonnull final MethodNode method, @Nonnull final String owner,
+			final String helper, @Nonnull final LineCounter lines) {
+		if (helper != null) {
+			lines.visitLine(method);
+			method.visitVarInsn(ALOAD, 0);
+			method.visitVarInsn(ALOAD, 1);
+			method.visitMethodInsn(INVOKESPECIAL, owner, helper, HELPER_DESC, false);
+		}
+		method.visitInsn(RETURN);
+		method.visitMaxs(3, 3);
+		method.visitEnd();
+	}
+
+	@Nonnull
+	private static String getFieldName(final int index) {
+		return "field" + index;
+	}
+
+	private static final class LineCounter {
+		private int line;
+
+		public void visitLine(@Nonnull final MethodNode method) {
+			final Label label = new Label();
+			method.visitLabel(label);
+			method.visitLineNumber(++line, label);
+		}
+
+		@Override
+		public String toString() {
+			return "LineCounter [ line=" + line + " ]";
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.android.tools.lint.LintCliClient;
+import com.android.tools.lint.LintCliFlags;
+import com.android.tools.lint.client.api.IssueRegistry;
+import com.android.tools.lint.detector.api.Issue;
+import com.monits.linters.ast.ViewInflateDetector;
+import com.monits.linters.ast.ViewInflatePsiDetector;
+
+/**
+ * Compares both implementations of ViewInflateDetector linting a real project,
+ * given with {@code -p project=<path>}. Each operation is a whole lint run with just
+ * that issue enabled, so parsing is included, as it's part of what each AST costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewInflateBenchmark {
+	private static final String LOMBOK = "lombok";
+	private static final String PSI = "psi";
+	private static final String CLIENT_NAME = "cli";
+
+	@Param({ LOMBOK, PSI })
+	private String implementation;
+
+	@Param({ "" })
+	private String project;
+
+	private IssueRegistry registry;
+	private List<File> files;
+
+	/**
+	 * Chooses the implementation of the issue, outside of the measurement
+	 */
+	@Setup
+	public void setUp() {
+		if (project.isEmpty()) {
+			throw new IllegalArgumentException("Set the project to lint with -p project=<path>");
+		}
+
+		ViewInflateDetector.VIEW_INFLATE_IGNORES_THEME.setImplementation(PSI.equals(implementation)
+				? ViewInflatePsiDetector.IMPLEMENTATION : ViewInflateDetector.IMPLEMENTATION);
+		registry = new IssueRegistry() {
+			@Override
+			public List<Issue> getIssues() {
+				return Collections.singletonList(ViewInflateDetector.VIEW_INFLATE_IGNORES_THEME);
+			}
+		};
+		files = Collections.singletonList(new File(project));
+	}
+
+	/**
+	 * Lints the project
+	 *
+	 * @return The exit code of lint, so the work can't be optimized away
+	 * @throws IOException If the project can't be read
+	 */
+	@Benchmark
+	public int lintProject() throws IOException {
+		final LintCliFlags flags = new LintCliFlags();
+		flags.setQuiet(true);
+		return new LintCliClient(flags, CLIENT_NAME).run(registry, files);
+	}
+
+	@Override
+	public String toString() {
+		return "ViewInflateBenchmark [ implementation=" + implementation + ", project=" + project + " ]";
+	}
+}
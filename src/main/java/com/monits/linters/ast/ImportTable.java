@@ -0,0 +1,133 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import lombok.ast.CompilationUnit;
+import lombok.ast.ImportDeclaration;
+import lombok.ast.PackageDeclaration;
+
+/**
+ * The imports of a compilation unit, indexed so names are resolved without
+ * scanning the import declarations again.
+ */
+public class ImportTable {
+	private static final String STAR = "*";
+
+	private final Map<String, String> typeImports;
+	private final Map<String, String> staticImports;
+	private final List<String> starImports;
+	private final String packageName;
+
+	/**
+	 * Creates a new ImportTable instance.
+	 *
+	 * @param compilationUnit The compilation unit whose imports to index
+	 */
+	public ImportTable(@Nonnull final CompilationUnit compilationUnit) {
+		typeImports = new HashMap<>();
+		staticImports = new HashMap<>();
+		starImports = new ArrayList<>();
+
+		for (final ImportDeclaration id : compilationUnit.astImportDeclarations()) {
+			final String name = id.asFullyQualifiedName();
+			if (id.astStaticImport()) {
+				if (!id.astStarImport()) {
+					// The first import wins, as for the compiler
+					putIfAbsent(staticImports, id.astParts().last().astValue(),
+							name.substring(0, name.lastIndexOf('.')));
+				}
+			} else if (id.astStarImport()) {
+				starImports.add(name);
+			} else {
+				putIfAbsent(typeImports, id.astParts().last().astValue(), name);
+			}
+		}
+
+		final PackageDeclaration packageDeclaration = compilationUnit.astPackageDeclaration();
+		packageName = packageDeclaration == null ? null : packageDeclaration.getPackageName();
+	}
+
+	/**
+	 * Retrieves the type imported with a given simple name
+	 *
+	 * @param simpleName The simple name of the type
+	 * @return The FQCN of the imported type, or null if there is no such import
+	 */
+	@CheckForNull
+	public String getTypeImport(@Nonnull final String simpleName) {
+		return typeImports.get(simpleName);
+	}
+
+	/**
+	 * Retrieves the type declaring a statically imported member
+	 *
+	 * @param memberName The name of the imported method or field
+	 * @return The FQCN of the type declaring the member, or null if there is no such import
+	 */
+	@CheckForNull
+	public String getStaticImportOwner(@Nonnull final String memberName) {
+		return staticImports.get(memberName);
+	}
+
+	/**
+	 * Resolves a simple name through the star imports. We can't tell which types a package has,
+	 * so only the given candidates are considered.
+	 *
+	 * @param simpleName The simple name of the type
+	 * @param knownTypes The FQCN of the types the name may resolve to
+	 * @return The FQCN of the last star import matching a known type, or null if none does
+	 */
+	@CheckForNull
+	public String resolveStarImport(@Nonnull final String simpleName, @Nonnull final Set<String> knownTypes) {
+		String typeName = null;
+		for (final String starImport : starImports) {
+			final String candidate = starImport.replace(STAR, simpleName);
+			if (knownTypes.contains(candidate)) {
+				typeName = candidate;
+			}
+		}
+		return typeName;
+	}
+
+	/**
+	 * @return The package of the compilation unit, or null for the default package
+	 */
+	@CheckForNull
+	public String getPackageName() {
+		return packageName;
+	}
+
+	private static void putIfAbsent(@Nonnull final Map<String, String> map, @Nonnull final String key,
+			@Nullable final String value) {
+		if (!map.containsKey(key)) {
+			map.put(key, value);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ImportTable [ packageName=" + packageName + ", typeImports=" + typeImports
+				+ ", staticImports=" + staticImports + ", starImports=" + starImports + " ]";
+	}
+}
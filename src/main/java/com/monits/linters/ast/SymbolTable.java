@@ -0,0 +1,148 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.ast;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import lombok.ast.Block;
+import lombok.ast.Cast;
+import lombok.ast.Expression;
+import lombok.ast.Identifier;
+import lombok.ast.Node;
+import lombok.ast.Select;
+import lombok.ast.Statement;
+import lombok.ast.This;
+import lombok.ast.TypeBody;
+import lombok.ast.TypeMember;
+import lombok.ast.VariableDeclaration;
+import lombok.ast.VariableDefinition;
+import lombok.ast.VariableDefinitionEntry;
+import lombok.ast.VariableReference;
+
+/**
+ * The variables declared in each scope of a compilation unit. Every block and
+ * type body is indexed by name the first time a lookup reaches it, so resolving
+ * a variable takes one hash probe per enclosing scope. For a single lookup,
+ * {@link TreeTransversal} scans the scopes without indexing them.
+ */
+public class SymbolTable {
+	private final Map<Node, Map<String, VariableDefinitionEntry>> scopes;
+
+	/**
+	 * Creates a new SymbolTable instance.
+	 */
+	public SymbolTable() {
+		scopes = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Retrieves the definition of a referenced variable.
+	 *
+	 * @param reference The variable reference
+	 * @return The definition of the variable, or null if not found
+	 */
+	@CheckForNull
+	public VariableDefinitionEntry getDefinitionForVariable(@Nonnull final VariableReference reference) {
+		return getDefinitionForVariable(reference.astIdentifier());
+	}
+
+	/**
+	 * Retrieves the definition of a variable, looking in each enclosing scope.
+	 *
+	 * @param identifier The identifier of the variable
+	 * @return The definition of the variable, or null if not found
+	 */
+	@CheckForNull
+	public VariableDefinitionEntry getDefinitionForVariable(@Nonnull final Identifier identifier) {
+		final String varName = identifier.astValue();
+		for (Node node = identifier.getParent(); node != null; node = node.getParent()) {
+			if (node instanceof TypeBody || node instanceof Block) {
+				final VariableDefinitionEntry var = getScope(node).get(varName);
+				if (var != null) {
+					return var;
+				}
+			}
+		}
+
+		// Should never happen!
+		return null;
+	}
+
+	/**
+	 * Retrieves the definition of a variable wrapped in casts or qualified with this.
+	 *
+	 * @param exp The expression referencing the variable
+	 * @return The definition of the variable, or null if not found
+	 */
+	@CheckForNull
+	public VariableDefinitionEntry getDefinitionForWrappedVariable(@Nonnull final Expression exp) {
+		if (exp instanceof VariableReference) {
+			return getDefinitionForVariable((VariableReference) exp);
+		} else if (exp instanceof Cast) {
+			return getDefinitionForWrappedVariable(((Cast) exp).astOperand());
+		} else if (exp instanceof Select) {
+			final Select select = (Select) exp;
+			if (select.astOperand() instanceof This) {
+				return getDefinitionForVariable(select.astIdentifier());
+			}
+		}
+
+		return null;
+	}
+
+	@Nonnull
+	private Map<String, VariableDefinitionEntry> getScope(@Nonnull final Node node) {
+		Map<String, VariableDefinitionEntry> scope = scopes.get(node);
+		if (scope == null) {
+			scope = new HashMap<>();
+			if (node instanceof TypeBody) {
+				for (final TypeMember tm : ((TypeBody) node).astMembers()) {
+					if (tm instanceof VariableDeclaration) {
+						addAll(scope, ((VariableDeclaration) tm).astDefinition());
+					}
+				}
+			} else {
+				// Declarations anywhere in the block are visible, as they always were
+				for (final Statement stmt : ((Block) node).astContents()) {
+					if (stmt instanceof VariableDefinition) {
+						addAll(scope, (VariableDefinition) stmt);
+					}
+				}
+			}
+			scopes.put(node, scope);
+		}
+		return scope;
+	}
+
+	private static void addAll(@Nonnull final Map<String, VariableDefinitionEntry> scope,
+			@Nonnull final VariableDefinition definition) {
+		for (final VariableDefinitionEntry var : definition.astVariables()) {
+			final String name = var.astName().astValue();
+			// The first definition wins
+			if (!scope.containsKey(name)) {
+				scope.put(name, var);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SymbolTable [ scopes=" + scopes.size() + " ]";
+	}
+}
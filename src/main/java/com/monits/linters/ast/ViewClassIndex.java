@@ -0,0 +1,148 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.ast;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.android.sdklib.IAndroidTarget;
+import com.android.tools.lint.detector.api.Context;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import com.monits.linters.bc.hierarchy.ClassHierarchy;
+import com.monits.linters.bc.hierarchy.ClassPathIndex;
+import com.monits.linters.bc.hierarchy.JarIndexCache;
+
+/**
+ * The View classes known to a project, by FQCN and by simple name.
+ */
+public class ViewClassIndex {
+	private static final Logger LOGGER = Logger.getLogger(ViewClassIndex.class.getName());
+	private static final String VIEW_CLASS = "android/view/View";
+
+	private final Set<String> classNames;
+	private final ListMultimap<String, String> classNamesBySimpleName;
+
+	/**
+	 * Creates a new ViewClassIndex instance.
+	 *
+	 * @param classNames The FQCN of the View classes
+	 */
+	public ViewClassIndex(@Nonnull final Set<String> classNames) {
+		this.classNames = ImmutableSet.copyOf(classNames);
+
+		final ImmutableListMultimap.Builder<String, String> bySimpleName = ImmutableListMultimap.builder();
+		for (final String className : this.classNames) {
+			bySimpleName.put(className.substring(className.lastIndexOf('.') + 1), className);
+		}
+		classNamesBySimpleName = bySimpleName.build();
+	}
+
+	/**
+	 * Finds all the View classes of a project, reading the class headers of the project,
+	 * its libraries and the compile SDK. The SDK is indexed once per version and cached on disk.
+	 *
+	 * @param context The context of the project
+	 * @param knownViews The FQCN of the View classes known beforehand, used when the SDK can't be read
+	 * @return The index of View and all its descendants
+	 */
+	@Nonnull
+	public static ViewClassIndex build(@Nonnull final Context context, @Nonnull final Set<String> knownViews) {
+		// The SDK goes on a copy, other detectors must not see it in the shared project index
+		final ClassPathIndex index = new ClassPathIndex();
+		index.addAll(ClassHierarchy.get(context).getProjectIndex(context));
+
+		final IAndroidTarget target = context.getProject().getBuildTarget();
+		if (target != null) {
+			addPlatform(context, target, index);
+		}
+
+		// Only descendants of View are Views, the known ones are just a seed for when the SDK can't be read
+		final Set<String> classNames = new HashSet<>();
+		final Set<String> roots = new HashSet<>();
+		if (index.resolve(VIEW_CLASS) == null) {
+			classNames.addAll(knownViews);
+			for (final String knownView : knownViews) {
+				roots.add(knownView.replace('.', '/'));
+			}
+		} else {
+			classNames.add(VIEW_CLASS.replace('/', '.'));
+			roots.add(VIEW_CLASS);
+		}
+
+		// A hierarchy of our own, the SDK classes must not change what other detectors can resolve
+		for (final String subtype : new ClassHierarchy().getSubtypes(index, roots)) {
+			classNames.add(subtype.replace('/', '.').replace('$', '.'));
+		}
+
+		LOGGER.log(Level.FINE, "Found {0} View classes", classNames.size());
+		return new ViewClassIndex(classNames);
+	}
+
+	private static void addPlatform(@Nonnull final Context context, @Nonnull final IAndroidTarget target,
+			@Nonnull final ClassPathIndex index) {
+		final File androidJar = new File(target.getPath(IAndroidTarget.ANDROID_JAR));
+		if (!androidJar.isFile()) {
+			return;
+		}
+
+		final JarIndexCache cache = JarIndexCache.forClient(context.getClient());
+		try {
+			index.addAll(cache == null ? ClassPathIndex.readJar(androidJar)
+					: cache.getHeaders(androidJar, target.hashString() + '-' + androidJar.lastModified()));
+		} catch (final IOException e) {
+			LOGGER.log(Level.WARNING, "Couldn't index " + androidJar, e);
+		}
+	}
+
+	/**
+	 * Checks if a class is a known View
+	 *
+	 * @param className The FQCN of the class
+	 * @return true if the class is a known View
+	 */
+	public boolean contains(@Nullable final String className) {
+		return classNames.contains(className);
+	}
+
+	/**
+	 * Retrieves the View classes with a given simple name
+	 *
+	 * @param simpleName The simple name of the classes
+	 * @return The FQCN of the View classes with the given simple name
+	 */
+	@Nonnull
+	public List<String> getClassNames(@Nonnull final String simpleName) {
+		return classNamesBySimpleName.get(simpleName);
+	}
+
+	@Nonnull
+	public Set<String> getClassNames() {
+		return classNames;
+	}
+
+	@Override
+	public String toString() {
+		return "ViewClassIndex [ classNames=" + classNames.size() + " ]";
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.ast;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import com.android.tools.lint.detector.api.Detector;
+import com.android.tools.lint.detector.api.Detector.JavaPsiScanner;
+import com.android.tools.lint.detector.api.Implementation;
+import com.android.tools.lint.detector.api.JavaContext;
+import com.android.tools.lint.detector.api.Scope;
+import com.intellij.psi.JavaElementVisitor;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiMethodCallExpression;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Alternative implementation of {@link ViewInflateDetector} on PSI. Calls are resolved
+ * by lint, so there is no need to rebuild the called type from imports and packages.
+ * Enable it with {@link #ENABLED_PROPERTY}.
+ */
+@SuppressFBWarnings(value = "CD_CIRCULAR_DEPENDENCY",
+	justification = "The issue chooses between both implementations")
+public class ViewInflatePsiDetector extends Detector implements JavaPsiScanner {
+	/** System property choosing this implementation for {@link ViewInflateDetector#VIEW_INFLATE_IGNORES_THEME} */
+	public static final String ENABLED_PROPERTY = "com.monits.linters.viewinflate.psi";
+
+	/** The implementation of the issue on PSI */
+	public static final Implementation IMPLEMENTATION =
+			new Implementation(ViewInflatePsiDetector.class, Scope.JAVA_FILE_SCOPE);
+
+	private static final String VIEW_CLASS = "android.view.View";
+	private static final String INFLATE = "inflate";
+	private static final int LOLLIPOP_API_LEVEL = 21;
+
+	/**
+	 * @return true if this implementation was enabled through {@link #ENABLED_PROPERTY}
+	 */
+	public static boolean isEnabled() {
+		return Boolean.getBoolean(ENABLED_PROPERTY);
+	}
+
+	@Override
+	public EnumSet<Scope> getApplicableFiles() {
+		return Scope.JAVA_FILE_SCOPE;
+	}
+
+	@Override
+	public List<String> getApplicableMethodNames() {
+		return Collections.singletonList(INFLATE);
+	}
+
+	@Override
+	public void visitMethod(@Nonnull final JavaContext context, final JavaElementVisitor visitor,
+			@Nonnull final PsiMethodCallExpression call, @Nonnull final PsiMethod method) {
+		// If target is lollipop or newer, there is nothing to report
+		if (context.getProject().getMinSdk() >= LOLLIPOP_API_LEVEL) {
+			return;
+		}
+
+		// No matter through which View it's called, the call resolves to View.inflate
+		final PsiClass containingClass = method.getContainingClass();
+		if (containingClass != null && VIEW_CLASS.equals(containingClass.getQualifiedName())) {
+			context.report(ViewInflateDetector.VIEW_INFLATE_IGNORES_THEME, call, context.getLocation(call),
+					ViewInflateDetector.VIEW_INFLATE_MSG);
+		}
+	}
+}
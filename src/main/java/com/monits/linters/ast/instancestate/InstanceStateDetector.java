@@ -36,6 +36,7 @@ import com.android.tools.lint.detector.api.JavaContext;
 import com.android.tools.lint.detector.api.Scope;
 import com.android.tools.lint.detector.api.Severity;
 import com.google.common.collect.ImmutableSet;
+import com.monits.linters.ast.SymbolTable;
 
 public class InstanceStateDetector extends Detector implements JavaScanner {
 
@@ -127,6 +128,7 @@ public class InstanceStateDetector extends Detector implements JavaScanner {
 		private final JavaContext context;
 		private Map<String, BundleMethodInvocation> storedState;
 		private Map<String, BundleMethodInvocation> restoredState;
+		private SymbolTable symbols;
 		
 		public InstanceStateChecker(final JavaContext context) {
 			this.context = context;
@@ -141,6 +143,9 @@ public class InstanceStateDetector extends Detector implements JavaScanner {
 			storedState = new TreeMap<String, BundleMethodInvocation>();
 			restoredState = new TreeMap<String, BundleMethodInvocation>();
 			
+			// Every variable lookup in the unit shares the same scopes
+			symbols = new SymbolTable();
+			
 			return super.visitCompilationUnit(node);
 		}
 		
@@ -237,7 +242,7 @@ public class InstanceStateDetector extends Detector implements JavaScanner {
 			
 			final String bundleName = parameters.first().astVariables().first().astName().astValue();
 			final InstanceStateVisitor storeVisitor = new InstanceStateVisitor(bundleName,
-					InstanceStateVisitor.METHOD_PREFIX_PUT, context);
+					InstanceStateVisitor.METHOD_PREFIX_PUT, context, symbols);
 			node.astBody().accept(storeVisitor);
 			addAllUsedKeysReportinguplicates(storeVisitor, storedState, STATE_ALREADY_SAVED, ALREADY_SAVED_KEY);
 		}
@@ -258,7 +263,7 @@ public class InstanceStateDetector extends Detector implements JavaScanner {
 			}
 			
 			final InstanceStateVisitor storeVisitor = new InstanceStateVisitor(bundleName,
-					InstanceStateVisitor.METHOD_PREFIX_GET, context);
+					InstanceStateVisitor.METHOD_PREFIX_GET, context, symbols);
 			node.astBody().accept(storeVisitor);
 			addAllUsedKeysReportinguplicates(storeVisitor, restoredState, STATE_ALREADY_RESTORED, ALREADY_RESTORED_KEY);
 		}
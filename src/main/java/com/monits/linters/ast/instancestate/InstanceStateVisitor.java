@@ -39,6 +39,7 @@ import lombok.ast.VariableReference;
 
 import com.android.tools.lint.detector.api.JavaContext;
 import com.google.common.collect.ImmutableList;
+import com.monits.linters.ast.SymbolTable;
 import com.monits.linters.ast.TreeTransversal;
 
 /* default */ class InstanceStateVisitor extends ForwardingAstVisitor {
@@ -54,10 +55,12 @@ import com.monits.linters.ast.TreeTransversal;
 	/* default */ final List<BundleMethodInvocation> usedKeys;
 	private final List<MethodDeclaration> analyzedMethods;
 	private final JavaContext context;
+	private final SymbolTable symbols;
 	
 	public InstanceStateVisitor(final String bundleName, final String interestMethodPrefix,
-			final JavaContext context) {
+			final JavaContext context, final SymbolTable symbols) {
 		this.context = context;
+		this.symbols = symbols;
 		this.bundleName = bundleName;
 		usedKeys = new ArrayList<BundleMethodInvocation>();
 		analyzedMethods = new ArrayList<MethodDeclaration>();
@@ -133,7 +136,7 @@ import com.monits.linters.ast.TreeTransversal;
 								
 								// Go over that method and check it out
 								final String localBundleName = varDef.astVariables().first().astName().astValue();
-								final InstanceStateVisitor visitor = new InstanceStateVisitor(localBundleName, methodPrefix, context);
+								final InstanceStateVisitor visitor = new InstanceStateVisitor(localBundleName, methodPrefix, context, symbols);
 								visitor.analyzedMethods.addAll(analyzedMethods); //share our knowledge with children
 								md.astBody().accept(visitor);
 								usedKeys.addAll(visitor.usedKeys);
@@ -167,7 +170,7 @@ import com.monits.linters.ast.TreeTransversal;
 				if (n instanceof BinaryExpression) {
 					final BinaryExpression assignment = (BinaryExpression) n;
 					if (assignment.astOperator() == BinaryOperator.ASSIGN) {
-						final VariableDefinitionEntry varDef = TreeTransversal.getDefinitionForWrappedVariable(assignment.astLeft());
+						final VariableDefinitionEntry varDef = symbols.getDefinitionForWrappedVariable(assignment.astLeft());
 						if (varDef != null && TreeTransversal.variableIsField(varDef)) {
 							return varDef.astName().astValue();
 						}
@@ -182,7 +185,7 @@ import com.monits.linters.ast.TreeTransversal;
 			if (node.astArguments().size() >= 2) {
 				final Iterator<Expression> argumentsIterator = node.astArguments().iterator();
 				argumentsIterator.next(); // key is ignored
-				final VariableDefinitionEntry varDef = TreeTransversal.getDefinitionForWrappedVariable(argumentsIterator.next());
+				final VariableDefinitionEntry varDef = symbols.getDefinitionForWrappedVariable(argumentsIterator.next());
 				if (varDef != null && TreeTransversal.variableIsField(varDef)) {
 					return varDef.astName().astValue();
 				}
@@ -206,7 +209,7 @@ import com.monits.linters.ast.TreeTransversal;
 			}
 		} else if (exp instanceof VariableReference) {
 			final String fieldName = ((VariableReference) exp).astIdentifier().astValue();
-			final VariableDefinitionEntry varDefEntry = TreeTransversal.getDefinitionForVariable((VariableReference) exp);
+			final VariableDefinitionEntry varDefEntry = symbols.getDefinitionForVariable((VariableReference) exp);
 			
 			// We don't even care if not a field!
 			if (TreeTransversal.variableIsField(varDefEntry)) {
@@ -0,0 +1,98 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.MethodNode;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Classifies the methods of a class as factory methods or not, parsing each
+ * descriptor only once no matter how many instantiations a method has.
+ */
+/* default */ class FactoryMethodClassifier {
+	private final String className;
+	private final Set<String> supertypes;
+	private final Map<MethodNode, ReturnKind> returnKinds;
+
+	/**
+	 * Creates a new FactoryMethodClassifier instance.
+	 *
+	 * @param className The internal name of the class whose methods to classify
+	 * @param supertypes The internal names of the supertypes a factory method of the class may return
+	 */
+	/* default */ FactoryMethodClassifier(@Nonnull final String className, @Nonnull final Set<String> supertypes) {
+		this.className = className;
+		this.supertypes = ImmutableSet.copyOf(supertypes);
+		returnKinds = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Checks if a method is a factory method for an instantiated type. Static methods returning the
+	 * class are factory methods for any type, the ones returning a supertype only for the class itself.
+	 *
+	 * @param method The method to check
+	 * @param instantiatedType The internal name of the type instantiated in the method
+	 * @return true if the method is a factory method of the instantiated type
+	 */
+	public boolean isFactoryMethod(@Nonnull final MethodNode method, @Nonnull final String instantiatedType) {
+		switch (getReturnKind(method)) {
+		case CLASS:
+			return true;
+		case SUPERTYPE:
+			return className.equals(instantiatedType);
+		default:
+			return false;
+		}
+	}
+
+	@Nonnull
+	private ReturnKind getReturnKind(@Nonnull final MethodNode method) {
+		ReturnKind kind = returnKinds.get(method);
+		if (kind == null) {
+			final Type returnType = Type.getReturnType(method.desc);
+			if ((method.access & Opcodes.ACC_STATIC) == 0 || returnType.getSort() != Type.OBJECT) {
+				kind = ReturnKind.OTHER;
+			} else if (className.equals(returnType.getInternalName())) {
+				kind = ReturnKind.CLASS;
+			} else if (supertypes.contains(returnType.getInternalName())) {
+				kind = ReturnKind.SUPERTYPE;
+			} else {
+				kind = ReturnKind.OTHER;
+			}
+			returnKinds.put(method, kind);
+		}
+		return kind;
+	}
+
+	@Override
+	public String toString() {
+		return "FactoryMethodClassifier [ className=" + className + ", supertypes=" + supertypes
+				+ ", returnKinds=" + returnKinds.size() + " ]";
+	}
+
+	private enum ReturnKind {
+		CLASS,
+		SUPERTYPE,
+		OTHER
+	}
+}
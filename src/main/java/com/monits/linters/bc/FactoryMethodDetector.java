@@ -13,11 +13,14 @@
  */
 package com.monits.linters.bc;
 
+import java.util.HashSet;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.ClassNode;
@@ -26,12 +29,19 @@ import org.objectweb.asm.tree.TypeInsnNode;
 
 import com.android.tools.lint.detector.api.Category;
 import com.android.tools.lint.detector.api.ClassContext;
+import com.android.tools.lint.detector.api.Context;
 import com.android.tools.lint.detector.api.Detector;
 import com.android.tools.lint.detector.api.Implementation;
 import com.android.tools.lint.detector.api.Issue;
 import com.android.tools.lint.detector.api.Scope;
 import com.android.tools.lint.detector.api.Severity;
 import com.google.common.collect.ImmutableSet;
+import com.monits.linters.bc.hierarchy.ClassHierarchy;
+import com.monits.linters.bc.hierarchy.ClassPathIndex;
+import com.monits.linters.bc.hierarchy.IndexedSubtypes;
+import com.monits.linters.bc.hierarchy.LintTypeResolver;
+import com.monits.linters.bc.hierarchy.SubtypeMatcher;
+import com.monits.linters.bc.hierarchy.Supertypes;
 
 public class FactoryMethodDetector extends Detector implements Detector.ClassScanner {
 
@@ -49,64 +59,120 @@ public class FactoryMethodDetector extends Detector implements Detector.ClassSca
 			Category.CORRECTNESS, 6, Severity.WARNING,
 			new Implementation(FactoryMethodDetector.class, Scope.CLASS_FILE_SCOPE));
 
+	private static final Logger LOGGER = Logger.getLogger(FactoryMethodDetector.class.getName());
 	private static final Set<String> FRAGMENT_TYPE =
 			ImmutableSet.of("android/support/v4/app/Fragment", "android/app/Fragment");
 
-	@Override
-	@Nullable
-	public int[] getApplicableAsmNodeTypes() {
-		// TYPE_INSN check for opcodes as NEW, ANEWARRAY, CHECKCAST or INSTANCEOF
-		return new int[] { AbstractInsnNode.TYPE_INSN };
-	}
+	private static final int CONSTANT_CLASS = 7;
 
-	@Override
-	public void checkInstruction(@Nonnull final ClassContext context,
-			@Nonnull final ClassNode classNode, @Nonnull final MethodNode method,
-			@Nonnull final AbstractInsnNode instruction) {
+	private final SubtypeMatcher fragmentMatcher;
+	private volatile IndexedSubtypes fragmentDescendants;
 
-		if (instruction.getOpcode() != Opcodes.NEW) {
-			return;
-		}
+	/**
+	 * Creates a new FactoryMethodDetector instance.
+	 */
+	public FactoryMethodDetector() {
+		fragmentMatcher = new SubtypeMatcher(FRAGMENT_TYPE);
+	}
 
-		if (!isFragmentDescendant(context, ((TypeInsnNode) instruction).desc)) {
+	@Override
+	public void checkClass(@Nonnull final ClassContext context, @Nonnull final ClassNode classNode) {
+		// Most classes never mention a Fragment, skip them without looking at their code
+		if (!referencesFragment(context)) {
 			return;
 		}
 
-		if (isInFactoryMethodOfSameFragment(classNode, method)) {
-			return;
+		FactoryMethodClassifier factoryMethods = null;
+		for (final MethodNode method : classNode.methods) {
+			for (final AbstractInsnNode instruction : method.instructions.toArray()) {
+				if (instruction.getOpcode() != Opcodes.NEW) {
+					continue;
+				}
+				final String instantiatedType = ((TypeInsnNode) instruction).desc;
+				if (!isFragmentDescendant(context, instantiatedType)) {
+					continue;
+				}
+
+				if (factoryMethods == null) {
+					factoryMethods = createFactoryMethodClassifier(context, classNode);
+				}
+				if (!factoryMethods.isFactoryMethod(method, instantiatedType)) {
+					report(context, method, instruction);
+				}
+			}
 		}
+	}
 
+	private void report(@Nonnull final ClassContext context, @Nonnull final MethodNode method,
+			@Nonnull final AbstractInsnNode instruction) {
 		context.report(USE_FACTORY_METHOD_INSTEAD_NEW_FRAGMENT, method, instruction,
 				context.getLocation(instruction.getNext().getNext()), FACTORY_METHOD_ERROR_MESSAGE);
+	}
 
-		super.checkInstruction(context, classNode, method, instruction);
+	/**
+	 * Checks the CONSTANT_Class entries of the class constant pool, any NEW
+	 * instruction must refer to one of them.
+	 *
+	 * @param context The context of the class being checked
+	 * @return true if any class referenced by the class is a Fragment
+	 */
+	private boolean referencesFragment(@Nonnull final ClassContext context) {
+		final ClassReader reader = new ClassReader(context.getBytecode());
+		final char[] buffer = new char[reader.getMaxStringLength()];
+		for (int i = 1; i < reader.getItemCount(); i++) {
+			final int offset = reader.getItem(i);
+			// The second slot of longs and doubles has no entry
+			if (offset > 0 && reader.b[offset - 1] == CONSTANT_CLASS) {
+				final String className = reader.readUTF8(offset, buffer);
+				// Array types can't be instantiated with NEW
+				if (className.charAt(0) != '[' && isFragmentDescendant(context, className)) {
+					return true;
+				}
+			}
+		}
+		return false;
 	}
 
-	@Nullable
-	private ClassNode getClassNode(@Nonnull final ClassContext context, @Nonnull final String descriptor) {
-		return context.getDriver().findClass(context, descriptor, 0);
+	@Override
+	public void beforeCheckProject(@Nonnull final Context context) {
+		// Resolve the whole hierarchy once, from the class headers, instead of once per instruction
+		final ClassPathIndex index = ClassHierarchy.get(context).getProjectIndex(context);
+		final IndexedSubtypes descendants = IndexedSubtypes.compute(index, FRAGMENT_TYPE);
+		fragmentDescendants = descendants;
+		LOGGER.log(Level.FINE, "Found {0} Fragments among {1} classes, {2} of them fully resolved",
+				new Object[] { descendants.getSubtypes().size(), index.getClassNames().size(),
+					descendants.getResolvedTypes().size() });
+	}
+
+	@Override
+	public void afterCheckProject(@Nonnull final Context context) {
+		LOGGER.log(Level.FINE, "Checked {0} instantiated types, non Fragment cache hit ratio {1}",
+				new Object[] { fragmentMatcher.getLookupCount(), fragmentMatcher.getHitRatio() });
 	}
 
 	private boolean isFragmentDescendant(@Nonnull final ClassContext context, @Nonnull final String className) {
-		ClassNode classNode = getClassNode(context, className);
-		while (classNode != null && !FRAGMENT_TYPE.contains(classNode.superName)) {
-			// check again if the parent is a fragment
-			classNode = getClassNode(context, classNode.superName);
-		}
-		// is the classNode is null the class is not a Fragment descendant
-		return classNode != null;
+		final IndexedSubtypes descendants = fragmentDescendants;
+		// Types out of the index, or with supertypes out of it, are resolved lazily through lint
+		return descendants != null && descendants.isResolved(className) ? descendants.contains(className)
+				: fragmentMatcher.matches(context, className);
 	}
 
-	private boolean isInFactoryMethodOfSameFragment(@Nonnull final ClassNode classNode,
-			@Nonnull final MethodNode method) {
-		final String methodDesc = method.desc;
-		final String returnType = methodDesc.substring(methodDesc.lastIndexOf(')') + 1, methodDesc.length());
-		// if method.access & Opcodes.ACC_STATIC != 0 then the method is STATIC
-		return (method.access & Opcodes.ACC_STATIC) != 0
-				// if the return type is a class we have 'L[class name];'
-				&& returnType.charAt(0) == 'L' && returnType.endsWith(";")
-				// get the class name to check if it is the same as the class
-				&& returnType.substring(returnType.indexOf('L') + 1, returnType.length() - 1)
-				.equals(classNode.name);
+	/**
+	 * Factory methods return the class itself or, for Fragments, any Fragment it extends.
+	 */
+	@Nonnull
+	private FactoryMethodClassifier createFactoryMethodClassifier(@Nonnull final ClassContext context,
+			@Nonnull final ClassNode classNode) {
+		final Set<String> fragmentSupertypes = new HashSet<>();
+		if (isFragmentDescendant(context, classNode.name)) {
+			final Supertypes supertypes = ClassHierarchy.get(context)
+					.getSupertypes(new LintTypeResolver(context), classNode.name);
+			for (final String supertype : supertypes.getTypes()) {
+				if (FRAGMENT_TYPE.contains(supertype) || isFragmentDescendant(context, supertype)) {
+					fragmentSupertypes.add(supertype);
+				}
+			}
+		}
+		return new FactoryMethodClassifier(classNode.name, fragmentSupertypes);
 	}
 }
\ No newline at end of file
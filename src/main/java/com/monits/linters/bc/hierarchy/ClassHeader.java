@@ -0,0 +1,79 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.objectweb.asm.tree.ClassNode;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The header of a class, just what's needed to navigate the type hierarchy.
+ */
+public class ClassHeader {
+	private final String name;
+	private final String superName;
+	private final List<String> interfaces;
+
+	/**
+	 * Creates a new ClassHeader instance.
+	 *
+	 * @param name The internal name of the class
+	 * @param superName The internal name of the super class, or null for java/lang/Object
+	 * @param interfaces The internal names of the implemented interfaces
+	 */
+	public ClassHeader(@Nonnull final String name, @Nullable final String superName,
+			@Nonnull final List<String> interfaces) {
+		this.name = name;
+		this.superName = superName;
+		this.interfaces = ImmutableList.copyOf(interfaces);
+	}
+
+	/**
+	 * Creates the header of a parsed class
+	 *
+	 * @param classNode The class
+	 * @return The header of the class
+	 */
+	@Nonnull
+	public static ClassHeader of(@Nonnull final ClassNode classNode) {
+		return new ClassHeader(classNode.name, classNode.superName, classNode.interfaces);
+	}
+
+	@Nonnull
+	public String getName() {
+		return name;
+	}
+
+	@CheckForNull
+	public String getSuperName() {
+		return superName;
+	}
+
+	@Nonnull
+	public List<String> getInterfaces() {
+		return interfaces;
+	}
+
+	@Override
+	public String toString() {
+		return "ClassHeader [ name=" + name + ", superName=" + superName
+				+ ", interfaces=" + interfaces + " ]";
+	}
+}
@@ -0,0 +1,195 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+
+import com.android.tools.lint.client.api.LintDriver;
+import com.android.tools.lint.detector.api.ClassContext;
+import com.android.tools.lint.detector.api.Context;
+import com.android.tools.lint.detector.api.Project;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Memoized type hierarchy of a project, shared by all the bytecode detectors of a lint run.
+ * The supertypes of each class are resolved once, later queries are a map lookup.
+ * Each project has its own, as what can be resolved depends on its class path.
+ */
+public class ClassHierarchy {
+	private static final String OBJECT_CLASS = "java/lang/Object";
+	private static final Map<LintDriver, Map<Project, ClassHierarchy>> HIERARCHIES =
+			Collections.synchronizedMap(new WeakHashMap<LintDriver, Map<Project, ClassHierarchy>>());
+
+	private final ConcurrentMap<String, Supertypes> supertypes;
+	private ClassPathIndex libraryIndex;
+	private ClassPathIndex projectIndex;
+
+	/**
+	 * Creates a new, empty, ClassHierarchy instance.
+	 */
+	public ClassHierarchy() {
+		supertypes = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Retrieves the hierarchy of a project, shared by all the detectors of the current lint run
+	 *
+	 * @param context Any context of the project in the lint run
+	 * @return The hierarchy of the project
+	 */
+	@Nonnull
+	public static ClassHierarchy get(@Nonnull final Context context) {
+		final LintDriver driver = context.getDriver();
+		synchronized (HIERARCHIES) {
+			Map<Project, ClassHierarchy> projectHierarchies = HIERARCHIES.get(driver);
+			if (projectHierarchies == null) {
+				projectHierarchies = new HashMap<>();
+				HIERARCHIES.put(driver, projectHierarchies);
+			}
+
+			// A library module has a smaller class path, its unresolved types may resolve in the app
+			ClassHierarchy hierarchy = projectHierarchies.get(context.getProject());
+			if (hierarchy == null) {
+				hierarchy = new ClassHierarchy();
+				projectHierarchies.put(context.getProject(), hierarchy);
+			}
+			return hierarchy;
+		}
+	}
+
+	/**
+	 * Retrieves the index of the classes in the jars the project depends on.
+	 * Jars are indexed once and stored in the lint cache, later runs just map the index.
+	 *
+	 * @param context Any context of the project of the hierarchy
+	 * @return The index of the project libraries
+	 */
+	@Nonnull
+	public synchronized ClassPathIndex getLibraryIndex(@Nonnull final Context context) {
+		if (libraryIndex == null) {
+			libraryIndex = ClassPathIndex.buildLibraries(context.getProject().getJavaLibraries(true),
+					JarIndexCache.forClient(context.getClient()));
+		}
+		return libraryIndex;
+	}
+
+	/**
+	 * Retrieves the index of the classes of the project and the jars it depends on.
+	 * The class folders are read once per lint run, no matter how many detectors use it.
+	 *
+	 * @param context Any context of the project of the hierarchy
+	 * @return The index of the project classes and libraries, must not be modified
+	 */
+	@Nonnull
+	public synchronized ClassPathIndex getProjectIndex(@Nonnull final Context context) {
+		if (projectIndex == null) {
+			projectIndex = ClassPathIndex.build(context.getProject().getJavaClassFolders(),
+					getLibraryIndex(context));
+		}
+		return projectIndex;
+	}
+
+	/**
+	 * Checks if a type descends from any of the given types
+	 *
+	 * @param context The context of the class being checked
+	 * @param type The internal name of the type to check
+	 * @param roots The internal names of the possible supertypes
+	 * @return true if any of the roots is a proper supertype of the type
+	 */
+	public boolean isSubtypeOf(@Nonnull final ClassContext context, @Nonnull final String type,
+			@Nonnull final Set<String> roots) {
+		return getSupertypes(new LintTypeResolver(context), type).containsAny(roots);
+	}
+
+	/**
+	 * Retrieves all the supertypes of a type
+	 *
+	 * @param resolver The resolver for types not yet in the hierarchy
+	 * @param type The internal name of the type
+	 * @return The supertypes of the type
+	 */
+	@Nonnull
+	public Supertypes getSupertypes(@Nonnull final TypeResolver resolver, @Nonnull final String type) {
+		final Supertypes cached = supertypes.get(type);
+		if (cached != null) {
+			return cached;
+		}
+
+		final Supertypes computed = computeSupertypes(resolver, type);
+		final Supertypes previous = supertypes.putIfAbsent(type, computed);
+		return previous == null ? computed : previous;
+	}
+
+	/**
+	 * Finds all the types descending from any of the given types
+	 *
+	 * @param index The types to check, also used to resolve their supertypes
+	 * @param roots The internal names of the supertypes to look for
+	 * @return The internal names of the types in the index descending from any root
+	 */
+	@Nonnull
+	public Set<String> getSubtypes(@Nonnull final ClassPathIndex index, @Nonnull final Set<String> roots) {
+		final ImmutableSet.Builder<String> subtypes = ImmutableSet.builder();
+		for (final String type : index.getClassNames()) {
+			if (getSupertypes(index, type).containsAny(roots)) {
+				subtypes.add(type);
+			}
+		}
+		return subtypes.build();
+	}
+
+	@Nonnull
+	private Supertypes computeSupertypes(@Nonnull final TypeResolver resolver, @Nonnull final String type) {
+		if (OBJECT_CLASS.equals(type)) {
+			return Supertypes.NONE;
+		}
+
+		final ClassHeader header = resolver.resolve(type);
+		if (header == null) {
+			return Supertypes.UNRESOLVED;
+		}
+
+		final ImmutableSet.Builder<String> types = ImmutableSet.builder();
+		boolean complete = true;
+		if (header.getSuperName() != null) {
+			complete = addSupertypes(resolver, header.getSuperName(), types);
+		}
+		for (final String interfaceName : header.getInterfaces()) {
+			complete &= addSupertypes(resolver, interfaceName, types);
+		}
+		return new Supertypes(types.build(), complete);
+	}
+
+	private boolean addSupertypes(@Nonnull final TypeResolver resolver, @Nonnull final String supertype,
+			@Nonnull final ImmutableSet.Builder<String> types) {
+		final Supertypes inherited = getSupertypes(resolver, supertype);
+		types.add(supertype);
+		types.addAll(inherited.getTypes());
+		return inherited.isComplete();
+	}
+
+	@Override
+	public String toString() {
+		return "ClassHierarchy [ types=" + supertypes.size() + " ]";
+	}
+}
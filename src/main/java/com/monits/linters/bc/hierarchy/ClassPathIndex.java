@@ -0,0 +1,202 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.objectweb.asm.ClassReader;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Headers of every class in a set of class folders and jars, read without
+ * parsing any code. Used to resolve the whole hierarchy of a project at once.
+ */
+public class ClassPathIndex implements TypeResolver {
+	private static final Logger LOGGER = Logger.getLogger(ClassPathIndex.class.getName());
+	private static final String CLASS_EXTENSION = ".class";
+
+	private final Map<String, ClassHeader> headers;
+
+	/**
+	 * Creates a new, empty, ClassPathIndex instance.
+	 */
+	public ClassPathIndex() {
+		headers = new HashMap<>();
+	}
+
+	/**
+	 * Indexes the classes of a project
+	 *
+	 * @param classFolders The folders with the compiled classes of the project
+	 * @param libraries The index of the jars the project depends on
+	 * @return The index of all the classes found
+	 */
+	@Nonnull
+	public static ClassPathIndex build(@Nonnull final List<File> classFolders,
+			@Nonnull final ClassPathIndex libraries) {
+		final ClassPathIndex index = new ClassPathIndex();
+		for (final File folder : classFolders) {
+			index.addFolder(folder);
+		}
+		index.addAll(libraries);
+		return index;
+	}
+
+	/**
+	 * Indexes the jars a project depends on
+	 *
+	 * @param libraries The jars to index
+	 * @param cache The on disk cache of indexed jars, or null to always read them
+	 * @return The index of all the classes in the jars
+	 */
+	@Nonnull
+	public static ClassPathIndex buildLibraries(@Nonnull final List<File> libraries,
+			@Nullable final JarIndexCache cache) {
+		final ClassPathIndex index = new ClassPathIndex();
+		for (final File library : libraries) {
+			if (!library.isFile()) {
+				continue;
+			}
+
+			try {
+				index.addAll(cache == null ? readJar(library) : cache.getHeaders(library));
+			} catch (final IOException e) {
+				LOGGER.log(Level.WARNING, "Couldn't index library " + library, e);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Indexes all the classes in a folder and its subfolders
+	 *
+	 * @param folder The folder to index
+	 */
+	public void addFolder(@Nonnull final File folder) {
+		final File[] files = folder.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		for (final File file : files) {
+			if (file.isDirectory()) {
+				addFolder(file);
+			} else if (file.getName().endsWith(CLASS_EXTENSION)) {
+				try (final InputStream in = new FileInputStream(file)) {
+					add(readHeader(in));
+				} catch (final IOException e) {
+					LOGGER.log(Level.WARNING, "Couldn't read class " + file, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the headers of all the classes in a jar
+	 *
+	 * @param jar The jar to read
+	 * @return The headers of the classes in the jar
+	 * @throws IOException If the jar can't be read
+	 */
+	@Nonnull
+	public static List<ClassHeader> readJar(@Nonnull final File jar) throws IOException {
+		final List<ClassHeader> headers = new ArrayList<>();
+		try (final ZipFile zip = new ZipFile(jar)) {
+			final Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				final ZipEntry entry = entries.nextElement();
+				if (!entry.isDirectory() && entry.getName().endsWith(CLASS_EXTENSION)) {
+					try (final InputStream in = zip.getInputStream(entry)) {
+						headers.add(readHeader(in));
+					}
+				}
+			}
+		}
+		return headers;
+	}
+
+	/**
+	 * Adds a class header to the index
+	 *
+	 * @param header The header to add
+	 */
+	public void add(@Nonnull final ClassHeader header) {
+		// The first one wins, as in the class path
+		if (!headers.containsKey(header.getName())) {
+			headers.put(header.getName(), header);
+		}
+	}
+
+	/**
+	 * Adds many class headers to the index
+	 *
+	 * @param headers The headers to add
+	 */
+	public void addAll(@Nonnull final Iterable<ClassHeader> headers) {
+		for (final ClassHeader header : headers) {
+			add(header);
+		}
+	}
+
+	/**
+	 * Adds all the classes of another index
+	 *
+	 * @param index The index whose classes to add
+	 */
+	public void addAll(@Nonnull final ClassPathIndex index) {
+		addAll(index.headers.values());
+	}
+
+	@Nonnull
+	private static ClassHeader readHeader(@Nonnull final InputStream in) throws IOException {
+		// Only the constant pool and header are read, the code is never parsed
+		final ClassReader reader = new ClassReader(in);
+		return new ClassHeader(reader.getClassName(), reader.getSuperName(),
+				ImmutableList.copyOf(reader.getInterfaces()));
+	}
+
+	@CheckForNull
+	@Override
+	public ClassHeader resolve(@Nonnull final String internalName) {
+		return headers.get(internalName);
+	}
+
+	@Nonnull
+	public Set<String> getClassNames() {
+		return headers.keySet();
+	}
+
+	@Override
+	public String toString() {
+		return "ClassPathIndex [ classes=" + headers.size() + " ]";
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The subtypes of a set of roots among the classes of an index. A type is only
+ * known not to be a subtype if its whole hierarchy is in the index, any other
+ * type must be resolved by other means.
+ */
+public class IndexedSubtypes {
+	private final Set<String> subtypes;
+	private final Set<String> resolvedTypes;
+
+	/**
+	 * Creates a new IndexedSubtypes instance.
+	 *
+	 * @param subtypes The internal names of the subtypes found
+	 * @param resolvedTypes The internal names of the types known to be subtypes or not
+	 */
+	public IndexedSubtypes(@Nonnull final Set<String> subtypes, @Nonnull final Set<String> resolvedTypes) {
+		this.subtypes = ImmutableSet.copyOf(subtypes);
+		this.resolvedTypes = ImmutableSet.copyOf(resolvedTypes);
+	}
+
+	/**
+	 * Finds the subtypes of the roots among all the classes of an index
+	 *
+	 * @param index The types to check, also used to resolve their supertypes
+	 * @param roots The internal names of the supertypes to look for
+	 * @return The subtypes found, and the types known not to be subtypes
+	 */
+	@Nonnull
+	public static IndexedSubtypes compute(@Nonnull final ClassPathIndex index, @Nonnull final Set<String> roots) {
+		// Types missing from the index must not be remembered as unresolved by the shared hierarchy
+		final ClassHierarchy hierarchy = new ClassHierarchy();
+		final ImmutableSet.Builder<String> subtypes = ImmutableSet.builder();
+		final ImmutableSet.Builder<String> resolvedTypes = ImmutableSet.builder();
+		for (final String type : index.getClassNames()) {
+			final Supertypes supertypes = hierarchy.getSupertypes(index, type);
+			if (supertypes.containsAny(roots)) {
+				subtypes.add(type);
+				resolvedTypes.add(type);
+			} else if (supertypes.isComplete()) {
+				resolvedTypes.add(type);
+			}
+		}
+		return new IndexedSubtypes(subtypes.build(), resolvedTypes.build());
+	}
+
+	/**
+	 * Checks if it's known whether a type is a subtype or not
+	 *
+	 * @param type The internal name of the type
+	 * @return true if {@link #contains(String)} has the final word for the type
+	 */
+	public boolean isResolved(@Nonnull final String type) {
+		return resolvedTypes.contains(type);
+	}
+
+	/**
+	 * Checks if a type is a known subtype
+	 *
+	 * @param type The internal name of the type
+	 * @return true if the type descends from any of the roots
+	 */
+	public boolean contains(@Nonnull final String type) {
+		return subtypes.contains(type);
+	}
+
+	@Nonnull
+	public Set<String> getSubtypes() {
+		return subtypes;
+	}
+
+	@Nonnull
+	public Set<String> getResolvedTypes() {
+		return resolvedTypes;
+	}
+
+	@Override
+	public String toString() {
+		return "IndexedSubtypes [ subtypes=" + subtypes.size() + ", resolvedTypes=" + resolvedTypes.size() + " ]";
+	}
+}
@@ -0,0 +1,255 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.android.tools.lint.client.api.LintClient;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * On disk cache of the class headers of library jars. Each jar is indexed once,
+ * in a compact binary file named after the SHA-1 of its contents, and later runs
+ * read it through a memory mapped file instead of opening and parsing the jar.
+ */
+public class JarIndexCache {
+	private static final Logger LOGGER = Logger.getLogger(JarIndexCache.class.getName());
+	private static final int MAGIC = 0x4D4C4849;
+	private static final int VERSION = 1;
+	private static final int NO_SUPER = -1;
+	private static final int CORRUPT_COUNT = -1;
+	private static final int MIN_SYMBOL_SIZE = 2;
+	private static final int MIN_CLASS_SIZE = 10;
+	private static final String INDEX_EXTENSION = ".idx";
+	private static final String CACHE_DIR = "monits-class-index";
+
+	private final File cacheDir;
+
+	/**
+	 * Creates a new JarIndexCache instance.
+	 *
+	 * @param cacheDir The folder where to store the indexes
+	 */
+	public JarIndexCache(@Nonnull final File cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * Creates the cache of a lint client
+	 *
+	 * @param client The lint client
+	 * @return The cache in the lint cache folder, or null if the client has none
+	 */
+	@CheckForNull
+	public static JarIndexCache forClient(@Nonnull final LintClient client) {
+		final File clientCacheDir = client.getCacheDir(true);
+		return clientCacheDir == null ? null : new JarIndexCache(new File(clientCacheDir, CACHE_DIR));
+	}
+
+	/**
+	 * Retrieves the headers of all the classes in a jar, indexing it if needed
+	 *
+	 * @param jar The jar whose classes to retrieve
+	 * @return The headers of the classes in the jar
+	 * @throws IOException If the jar can't be read
+	 */
+	@Nonnull
+	public List<ClassHeader> getHeaders(@Nonnull final File jar) throws IOException {
+		return getHeaders(jar, Files.hash(jar, Hashing.sha1()).toString());
+	}
+
+	/**
+	 * Retrieves the headers of all the classes in a jar, indexing it if needed.
+	 * Useful for big jars with a known identity, such as an SDK platform, to avoid hashing them.
+	 *
+	 * @param jar The jar whose classes to retrieve
+	 * @param key The key identifying the contents of the jar
+	 * @return The headers of the classes in the jar
+	 * @throws IOException If the jar can't be read
+	 */
+	@Nonnull
+	public List<ClassHeader> getHeaders(@Nonnull final File jar, @Nonnull final String key) throws IOException {
+		final File indexFile = new File(cacheDir, key + INDEX_EXTENSION);
+		if (indexFile.isFile()) {
+			try {
+				final List<ClassHeader> headers = read(indexFile);
+				if (headers != null) {
+					return headers;
+				}
+			} catch (final IOException e) {
+				// The jar is still there to rebuild the index from
+				LOGGER.log(Level.WARNING, "Couldn't read the class index " + indexFile, e);
+			}
+			discard(indexFile);
+		}
+
+		final List<ClassHeader> headers = ClassPathIndex.readJar(jar);
+		try {
+			write(indexFile, headers);
+		} catch (final IOException e) {
+			// Not being able to cache the index is not a reason to fail
+			LOGGER.log(Level.WARNING, "Couldn't store the class index of " + jar, e);
+		}
+		return headers;
+	}
+
+	@CheckForNull
+	private static List<ClassHeader> read(@Nonnull final File indexFile) throws IOException {
+		try (final RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+				final FileChannel channel = file.getChannel()) {
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				LOGGER.log(Level.FINE, "Class index {0} is of another version", indexFile);
+				return null;
+			}
+
+			final int symbolCount = readCount(buffer, MIN_SYMBOL_SIZE);
+			if (symbolCount == CORRUPT_COUNT) {
+				return corrupt(indexFile);
+			}
+			final String[] symbols = new String[symbolCount];
+			for (int i = 0; i < symbols.length; i++) {
+				final byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+				buffer.get(bytes);
+				symbols[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			final int classCount = readCount(buffer, MIN_CLASS_SIZE);
+			if (classCount == CORRUPT_COUNT) {
+				return corrupt(indexFile);
+			}
+			final List<ClassHeader> headers = new ArrayList<>(classCount);
+			for (int i = 0; i < classCount; i++) {
+				final String name = symbols[buffer.getInt()];
+				final int superName = buffer.getInt();
+				final int interfaceCount = buffer.getShort() & 0xFFFF;
+				final List<String> interfaces = new ArrayList<>(interfaceCount);
+				for (int j = 0; j < interfaceCount; j++) {
+					interfaces.add(symbols[buffer.getInt()]);
+				}
+				headers.add(new ClassHeader(name, superName == NO_SUPER ? null : symbols[superName], interfaces));
+			}
+			return buffer.hasRemaining() ? corrupt(indexFile) : headers;
+		} catch (final BufferUnderflowException | IndexOutOfBoundsException e) {
+			LOGGER.log(Level.FINE, "Corrupt class index " + indexFile, e);
+			return corrupt(indexFile);
+		}
+	}
+
+	private static int readCount(@Nonnull final ByteBuffer buffer, final int minEntrySize) {
+		// A count the rest of the file can't hold is corrupt, don't allocate for it
+		final int count = buffer.getInt();
+		return count < 0 || count > buffer.remaining() / minEntrySize ? CORRUPT_COUNT : count;
+	}
+
+	@CheckForNull
+	private static List<ClassHeader> corrupt(@Nonnull final File indexFile) {
+		LOGGER.log(Level.WARNING, "Corrupt class index {0}", indexFile);
+		return null;
+	}
+
+	private static void discard(@Nonnull final File indexFile) {
+		// Called once the index is closed, otherwise it couldn't be deleted everywhere
+		if (!indexFile.delete()) {
+			LOGGER.log(Level.WARNING, "Couldn't delete the stale class index {0}", indexFile);
+		}
+	}
+
+	private void write(@Nonnull final File indexFile, @Nonnull final List<ClassHeader> headers)
+			throws IOException {
+		if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+			throw new IOException("Couldn't create " + cacheDir);
+		}
+
+		final Map<String, Integer> symbolIds = new HashMap<>();
+		final List<String> symbols = new ArrayList<>();
+		for (final ClassHeader header : headers) {
+			intern(header.getName(), symbolIds, symbols);
+			if (header.getSuperName() != null) {
+				intern(header.getSuperName(), symbolIds, symbols);
+			}
+			for (final String interfaceName : header.getInterfaces()) {
+				intern(interfaceName, symbolIds, symbols);
+			}
+		}
+
+		// Write aside and rename, so concurrent runs never see a partial index
+		final File tempFile = File.createTempFile(indexFile.getName(), null, cacheDir);
+		try (final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(symbols.size());
+			for (final String symbol : symbols) {
+				final byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+				out.writeShort(bytes.length);
+				out.write(bytes);
+			}
+			out.writeInt(headers.size());
+			for (final ClassHeader header : headers) {
+				out.writeInt(symbolIds.get(header.getName()));
+				out.writeInt(header.getSuperName() == null ? NO_SUPER : symbolIds.get(header.getSuperName()));
+				out.writeShort(header.getInterfaces().size());
+				for (final String interfaceName : header.getInterfaces()) {
+					out.writeInt(symbolIds.get(interfaceName));
+				}
+			}
+		}
+
+		try {
+			// Replaces any index stored meanwhile by another run, they have the same contents
+			java.nio.file.Files.move(tempFile.toPath(), indexFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+			if (!tempFile.delete()) {
+				LOGGER.log(Level.FINE, "Couldn't delete {0}", tempFile);
+			}
+			throw e;
+		}
+	}
+
+	private static void intern(@Nonnull final String symbol, @Nonnull final Map<String, Integer> symbolIds,
+			@Nonnull final List<String> symbols) {
+		if (!symbolIds.containsKey(symbol)) {
+			symbolIds.put(symbol, symbols.size());
+			symbols.add(symbol);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "JarIndexCache [ cacheDir=" + cacheDir + " ]";
+	}
+}
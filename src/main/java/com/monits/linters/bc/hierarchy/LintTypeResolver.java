@@ -0,0 +1,66 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import com.android.tools.lint.detector.api.ClassContext;
+
+/**
+ * Resolves classes through lint, from the class folders and libraries of the
+ * project being checked. The class being checked is taken from the context,
+ * and library classes from the library index, instead of reading them again.
+ */
+public class LintTypeResolver implements TypeResolver {
+	private final ClassContext context;
+	private ClassPathIndex libraries;
+
+	/**
+	 * Creates a new LintTypeResolver instance.
+	 *
+	 * @param context The context of the class being checked
+	 */
+	public LintTypeResolver(@Nonnull final ClassContext context) {
+		this.context = context;
+	}
+
+	@CheckForNull
+	@Override
+	public ClassHeader resolve(@Nonnull final String internalName) {
+		final ClassNode current = context.getClassNode();
+		if (internalName.equals(current.name)) {
+			return ClassHeader.of(current);
+		}
+
+		if (libraries == null) {
+			libraries = ClassHierarchy.get(context).getLibraryIndex(context);
+		}
+		final ClassHeader library = libraries.resolve(internalName);
+		if (library != null) {
+			return library;
+		}
+
+		final ClassNode classNode = context.getDriver().findClass(context, internalName, ClassReader.SKIP_CODE);
+		return classNode == null ? null : ClassHeader.of(classNode);
+	}
+
+	@Override
+	public String toString() {
+		return "LintTypeResolver [ class=" + context.getClassNode().name + " ]";
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import com.android.tools.lint.detector.api.ClassContext;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+/**
+ * Checks if types descend from a fixed set of roots, remembering the ones that don't.
+ * Most checked types are not subtypes, so those are answered without resolving
+ * anything: JDK types never are, and every other negative is memoized in an
+ * exact set, fronted by a bloom filter so unknown types skip the set lookup.
+ * Negatives with unresolved supertypes are left to the hierarchy of each project.
+ */
+public class SubtypeMatcher {
+	private static final String JDK_PACKAGE_PREFIX = "java/";
+	private static final int EXPECTED_NEGATIVES = 10000;
+	private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+	private final Set<String> roots;
+	private final BloomFilter<CharSequence> negativeFilter;
+	private final Set<String> negatives;
+	private final AtomicLong lookups;
+	private final AtomicLong hits;
+
+	/**
+	 * Creates a new SubtypeMatcher instance.
+	 *
+	 * @param roots The internal names of the supertypes to match
+	 */
+	public SubtypeMatcher(@Nonnull final Set<String> roots) {
+		this.roots = ImmutableSet.copyOf(roots);
+		negativeFilter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+				EXPECTED_NEGATIVES, FALSE_POSITIVE_PROBABILITY);
+		negatives = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		lookups = new AtomicLong();
+		hits = new AtomicLong();
+	}
+
+	/**
+	 * Checks if a type descends from any of the roots
+	 *
+	 * @param context The context of the class being checked
+	 * @param type The internal name of the type to check
+	 * @return true if any of the roots is a proper supertype of the type
+	 */
+	public boolean matches(@Nonnull final ClassContext context, @Nonnull final String type) {
+		return matches(ClassHierarchy.get(context), new LintTypeResolver(context), type);
+	}
+
+	/**
+	 * Checks if a type descends from any of the roots
+	 *
+	 * @param hierarchy The hierarchy to query for unknown types
+	 * @param resolver The resolver for types not yet in the hierarchy
+	 * @param type The internal name of the type to check
+	 * @return true if any of the roots is a proper supertype of the type
+	 */
+	public boolean matches(@Nonnull final ClassHierarchy hierarchy, @Nonnull final TypeResolver resolver,
+			@Nonnull final String type) {
+		lookups.incrementAndGet();
+		if (isKnownNegative(type)) {
+			hits.incrementAndGet();
+			return false;
+		}
+
+		final Supertypes supertypes = hierarchy.getSupertypes(resolver, type);
+		if (supertypes.containsAny(roots)) {
+			return true;
+		}
+
+		// Other projects may resolve what's missing, only a complete hierarchy is a negative for all
+		if (!supertypes.isComplete()) {
+			return false;
+		}
+
+		// A lost update to the filter only costs a slower lookup, never a wrong answer
+		synchronized (negativeFilter) {
+			negativeFilter.put(type);
+		}
+		negatives.add(type);
+		return false;
+	}
+
+	private boolean isKnownNegative(@Nonnull final String type) {
+		// Bloom filters have false positives, the exact set has the final word
+		return type.startsWith(JDK_PACKAGE_PREFIX)
+				|| negativeFilter.mightContain(type) && negatives.contains(type);
+	}
+
+	/**
+	 * @return The number of types checked so far
+	 */
+	public long getLookupCount() {
+		return lookups.get();
+	}
+
+	/**
+	 * @return The fraction of the checks answered without querying the hierarchy
+	 */
+	public double getHitRatio() {
+		final long total = lookups.get();
+		return total == 0 ? 0 : (double) hits.get() / total;
+	}
+
+	@Override
+	public String toString() {
+		return "SubtypeMatcher [ roots=" + roots + ", negatives=" + negatives.size()
+				+ ", lookups=" + lookups + ", hits=" + hits + " ]";
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * All the super classes and interfaces of a type, direct or not.
+ */
+public class Supertypes {
+	/** The supertypes of a type with none, such as java/lang/Object */
+	public static final Supertypes NONE = new Supertypes(ImmutableSet.<String>of(), true);
+	/** The supertypes of a type that can't be resolved */
+	public static final Supertypes UNRESOLVED = new Supertypes(ImmutableSet.<String>of(), false);
+
+	private final Set<String> types;
+	private final boolean complete;
+
+	/**
+	 * Creates a new Supertypes instance.
+	 *
+	 * @param types The internal names of the supertypes
+	 * @param complete Whether every supertype could be resolved
+	 */
+	public Supertypes(@Nonnull final Set<String> types, final boolean complete) {
+		this.types = ImmutableSet.copyOf(types);
+		this.complete = complete;
+	}
+
+	public boolean contains(@Nonnull final String type) {
+		return types.contains(type);
+	}
+
+	/**
+	 * Checks if any of the given types is a supertype
+	 *
+	 * @param roots The internal names of the types to look for
+	 * @return true if any of the types is a supertype
+	 */
+	public boolean containsAny(@Nonnull final Set<String> roots) {
+		for (final String root : roots) {
+			if (types.contains(root)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Nonnull
+	public Set<String> getTypes() {
+		return types;
+	}
+
+	/**
+	 * @return false if some supertype couldn't be resolved, so the hierarchy may be bigger
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	@Override
+	public String toString() {
+		return "Supertypes [ types=" + types + ", complete=" + complete + " ]";
+	}
+}
@@ -0,0 +1,32 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Source of class headers for a {@link ClassHierarchy}.
+ */
+public interface TypeResolver {
+
+	/**
+	 * Retrieves the header of a class
+	 *
+	 * @param internalName The internal name of the class
+	 * @return The header of the class, or null if it can't be found
+	 */
+	@CheckForNull
+	ClassHeader resolve(@Nonnull String internalName);
+}
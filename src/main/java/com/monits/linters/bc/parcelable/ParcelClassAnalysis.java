@@ -0,0 +1,386 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable;
+
+import static org.objectweb.asm.Opcodes.ASM5;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import com.android.tools.lint.detector.api.ClassContext;
+import com.monits.linters.bc.parcelable.models.ParcelEventLog;
+import com.monits.linters.bc.parcelable.models.ParcelFieldSequence;
+import com.monits.linters.bc.parcelable.models.ParcelMethodManager;
+import com.monits.linters.bc.parcelable.visitors.AbstractMethodVisitor;
+import com.monits.linters.bc.parcelable.visitors.ParcelClassVisitor;
+
+/**
+ * Analysis of a single Parcelable class. It holds all the state needed to check
+ * the class, so {@link ParcelDetector} itself remains stateless.
+ */
+public class ParcelClassAnalysis {
+	private static final int NO_EVENT = -1;
+	// Ids of known fields are never negative
+	private static final long NO_FIELD_ID = -1L;
+
+	private final ClassContext context;
+	private final ClassNode classNode;
+	private final ParcelEventLog eventLog;
+	private final ParcelClassSummaryCache classSummaries;
+	private final boolean dataflow;
+
+	/**
+	 * Creates a new ParcelClassAnalysis instance.
+	 *
+	 * @param context The context of the analyzed class
+	 * @param classNode The analyzed class
+	 * @param eventLog The log where to record the class events, owned by this analysis until it's done
+	 * @param classSummaries The project wide cache of class summaries
+	 * @param dataflow Whether to follow the flow of values, instead of just matching field instructions
+	 */
+	public ParcelClassAnalysis(@Nonnull final ClassContext context, @Nonnull final ClassNode classNode,
+			@Nonnull final ParcelEventLog eventLog, @Nonnull final ParcelClassSummaryCache classSummaries,
+			final boolean dataflow) {
+		this.context = context;
+		this.classNode = classNode;
+		this.eventLog = eventLog;
+		this.classSummaries = classSummaries;
+		this.dataflow = dataflow;
+	}
+
+	/**
+	 * Records the Parcel traffic of the class and reports any problem found
+	 */
+	public void analyze() {
+		eventLog.clear();
+		// Lint already parsed the class for us, walk its instructions instead of reading it again
+		new ParcelClassVisitor(ASM5, classNode, eventLog, dataflow).visitClass();
+		classSummaries.putSummary(classNode, eventLog);
+
+		reportMissingOrOutOfOrder();
+		reportIncompatibleType();
+	}
+
+	private void reportIncompatibleType() {
+		final int[] writeMethods = eventLog.getEvents(ParcelEventLog.WRITE_METHOD);
+		final int[] readMethods = eventLog.getEvents(ParcelEventLog.READ_METHOD);
+		if (writeMethods.length != readMethods.length) {
+			return;
+		}
+
+		for (int i = 0; i < readMethods.length; i++) {
+			final String readMethod = eventLog.getName(readMethods[i]);
+			final String writeMethod = eventLog.getName(writeMethods[i]);
+
+			final ParcelMethodManager parcelMethods = ParcelMethodManager.INSTANCE;
+			if (!parcelMethods.isCompatible(parcelMethods.getReadMethodId(readMethod),
+					parcelMethods.getWriteMethodId(writeMethod))) {
+				context.report(ParcelDetector.INCOMPATIBLE_READ_WRITE_TYPE,
+						getMethodContainer(eventLog.getMethodIndex(readMethods[i])), null,
+						context.getLocationForLine(eventLog.getLine(readMethods[i]), null, null, null),
+						"Incompatible types: " + readMethod + " - " + writeMethod);
+			}
+		}
+	}
+
+	private void reportMissingOrOutOfOrder() {
+		final int[] writeFields = eventLog.getEvents(ParcelEventLog.WRITE_FIELD);
+		final int[] readFields = eventLog.getEvents(ParcelEventLog.READ_FIELD);
+
+		/*
+		 * A super call made on one side only is replaced by the fields the super class
+		 * chain handles on that side, so fields of the super class handled by hand
+		 * on the other side still match.
+		 */
+		final AlignedFields writes = expandSuperCalls(writeFields, hasSuperCall(readFields),
+				ParcelEventLog.WRITE_FIELD);
+		final AlignedFields reads = expandSuperCalls(readFields, hasSuperCall(writeFields),
+				ParcelEventLog.READ_FIELD);
+
+		// Map each field to a dense key, so the alignment compares plain ints
+		final long[] fieldIds = collectFieldIds(writes.ids, reads.ids);
+		final int[] writeKeys = toKeys(writes.ids, fieldIds);
+		final int[] readKeys = toKeys(reads.ids, fieldIds);
+		final int[] writeMatches = new int[writeKeys.length];
+		final int[] readMatches = new int[readKeys.length];
+		SequenceAligner.align(writeKeys, readKeys, writeMatches, readMatches);
+
+		/*
+		 * A field out of order is left unmatched on both sides. Pair them up by key,
+		 * so it's reported only once, on the write side.
+		 */
+		final int[] outOfOrder = countOutOfOrder(fieldIds.length, writeKeys, writeMatches,
+				readKeys, readMatches);
+		final int[] pairedReads = new int[fieldIds.length];
+		int reportedWriteSuperCall = NO_EVENT;
+		int reportedReadSuperCall = NO_EVENT;
+
+		int i = 0;
+		int j = 0;
+		while (i < writeKeys.length || j < readKeys.length) {
+			if (i < writeKeys.length && writeMatches[i] == SequenceAligner.UNMATCHED) {
+				final int writeField = writes.events[i];
+				if (writes.inherited[i]) {
+					// The super class writes fields never read, report the super call missing on the read side once
+					if (reportedWriteSuperCall != writeField) {
+						reportMissingOrOutOfOrder(j < readKeys.length ? reads.events[j] : writeField);
+						reportedWriteSuperCall = writeField;
+					}
+				// writeField contains a Field named "this" if the writeToParcel Method is calling super.writeToParcel(...)
+				} else if (outOfOrder[writeKeys[i]] == 0
+						&& AbstractMethodVisitor.THIS.equals(eventLog.getName(writeField))) {
+					// we use the readField position to pointing the missing super call
+					reportMissingSuperCall(writeField, j < readKeys.length ? reads.events[j] : writeField,
+							ParcelEventLog.WRITE_FIELD);
+				} else {
+					reportMissingOrOutOfOrder(writeField);
+				}
+				i++;
+			} else if (j < readKeys.length && readMatches[j] == SequenceAligner.UNMATCHED) {
+				final int readField = reads.events[j];
+				final int key = readKeys[j];
+				if (pairedReads[key] < outOfOrder[key]) {
+					// Already reported on the write side
+					pairedReads[key]++;
+				} else if (reads.inherited[j]) {
+					// The super class reads fields never written, report the super call missing on the write side once
+					if (reportedReadSuperCall != readField) {
+						reportMissingOrOutOfOrder(i < writeKeys.length ? writes.events[i] : readField);
+						reportedReadSuperCall = readField;
+					}
+				// readField contains a Field named "this" if the Constructor is calling super(in)
+				} else if (AbstractMethodVisitor.THIS.equals(eventLog.getName(readField))) {
+					// we use the writeField position to pointing the missing super call
+					reportMissingSuperCall(readField, i < writeKeys.length ? writes.events[i] : readField,
+							ParcelEventLog.READ_FIELD);
+				} else {
+					reportMissingOrOutOfOrder(readField);
+				}
+				j++;
+			} else {
+				// Both fields are matched with each other
+				i++;
+				j++;
+			}
+		}
+	}
+
+	/**
+	 * Reports a super call made only on one side, unless the super class chain
+	 * doesn't use the Parcel in that direction, so calling it or not makes no difference
+	 *
+	 * @param superCall The unmatched super call event
+	 * @param reportedEvent The event where to report the missing super call
+	 * @param kind The direction of the super call
+	 */
+	private void reportMissingSuperCall(final int superCall, final int reportedEvent, final int kind) {
+		final String superName = eventLog.getDesc(superCall);
+		if (superName == null || classSummaries.usesParcel(context, superName, kind)) {
+			reportMissingOrOutOfOrder(reportedEvent);
+		}
+	}
+
+	private boolean hasSuperCall(@Nonnull final int[] fields) {
+		for (final int field : fields) {
+			if (AbstractMethodVisitor.THIS.equals(eventLog.getName(field))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Lays out the fields of one side for the alignment. Unless the other side calls
+	 * the super class too, each super call is replaced by the fields of the super
+	 * class chain in the same direction, as already summarized for the super class.
+	 *
+	 * @param fields The field events of this side
+	 * @param otherSideCallsSuper Whether the other side calls the super class
+	 * @param kind The direction of this side
+	 * @return The fields to align
+	 */
+	@Nonnull
+	private AlignedFields expandSuperCalls(@Nonnull final int[] fields, final boolean otherSideCallsSuper,
+			final int kind) {
+		final ParcelFieldSequence[] inherited = new ParcelFieldSequence[fields.length];
+		int length = fields.length;
+		if (!otherSideCallsSuper) {
+			for (int i = 0; i < fields.length; i++) {
+				final String superName = eventLog.getDesc(fields[i]);
+				if (superName != null && AbstractMethodVisitor.THIS.equals(eventLog.getName(fields[i]))) {
+					final ParcelFieldSequence sequence = classSummaries.getFieldSequence(context, superName, kind);
+					// Unknown chains, or chains with no fields, are left as a plain super call
+					if (sequence != null && !sequence.isEmpty()) {
+						inherited[i] = sequence;
+						length += sequence.size() - 1;
+					}
+				}
+			}
+		}
+
+		final AlignedFields aligned = new AlignedFields(length);
+		long unknownId = Long.MIN_VALUE;
+		int j = 0;
+		for (int i = 0; i < fields.length; i++) {
+			if (inherited[i] == null) {
+				aligned.events[j] = fields[i];
+				aligned.ids[j] = getFieldId(fields[i]);
+				j++;
+				continue;
+			}
+
+			for (int k = 0; k < inherited[i].size(); k++) {
+				final long id = getFieldId(inherited[i].getName(k), inherited[i].getDesc(k));
+				aligned.events[j] = fields[i];
+				aligned.inherited[j] = true;
+				// Fields never mentioned by this class can't match anything
+				aligned.ids[j] = id == NO_FIELD_ID ? unknownId++ : id;
+				j++;
+			}
+		}
+		return aligned;
+	}
+
+	/**
+	 * Collects the different fields written or read, as a sorted array of
+	 * name and descriptor pairs
+	 *
+	 * @param writeIds The ids of the written fields
+	 * @param readIds The ids of the read fields
+	 * @return The sorted ids of the different fields
+	 */
+	@Nonnull
+	private long[] collectFieldIds(@Nonnull final long[] writeIds, @Nonnull final long[] readIds) {
+		final long[] ids = new long[writeIds.length + readIds.length];
+		System.arraycopy(writeIds, 0, ids, 0, writeIds.length);
+		System.arraycopy(readIds, 0, ids, writeIds.length, readIds.length);
+		Arrays.sort(ids);
+
+		int unique = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (unique == 0 || ids[unique - 1] != ids[i]) {
+				ids[unique++] = ids[i];
+			}
+		}
+		return Arrays.copyOf(ids, unique);
+	}
+
+	@Nonnull
+	private int[] toKeys(@Nonnull final long[] ids, @Nonnull final long[] fieldIds) {
+		final int[] keys = new int[ids.length];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = Arrays.binarySearch(fieldIds, ids[i]);
+		}
+		return keys;
+	}
+
+	private long getFieldId(final int event) {
+		return toFieldId(eventLog.getNameId(event), eventLog.getDescId(event));
+	}
+
+	private long getFieldId(@Nonnull final String name, @Nullable final String desc) {
+		final int nameId = eventLog.getSymbolId(name);
+		final int descId = desc == null ? ParcelEventLog.NO_DESC : eventLog.getSymbolId(desc);
+		if (nameId == ParcelEventLog.NO_SYMBOL || desc != null && descId == ParcelEventLog.NO_SYMBOL) {
+			return NO_FIELD_ID;
+		}
+		return toFieldId(nameId, descId);
+	}
+
+	private static long toFieldId(final int nameId, final int descId) {
+		return (long) nameId << 32 | descId & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Counts, for each key, how many elements are left unmatched on both sides
+	 *
+	 * @param keyCount The number of different keys
+	 * @param writeKeys The write sequence
+	 * @param writeMatches The alignment of the write sequence
+	 * @param readKeys The read sequence
+	 * @param readMatches The alignment of the read sequence
+	 * @return The number of elements out of order for each key
+	 */
+	@Nonnull
+	private int[] countOutOfOrder(final int keyCount, @Nonnull final int[] writeKeys,
+			@Nonnull final int[] writeMatches, @Nonnull final int[] readKeys,
+			@Nonnull final int[] readMatches) {
+		final int[] unmatchedWrites = new int[keyCount];
+		for (int i = 0; i < writeKeys.length; i++) {
+			if (writeMatches[i] == SequenceAligner.UNMATCHED) {
+				unmatchedWrites[writeKeys[i]]++;
+			}
+		}
+
+		final int[] unmatchedReads = new int[keyCount];
+		for (int i = 0; i < readKeys.length; i++) {
+			if (readMatches[i] == SequenceAligner.UNMATCHED) {
+				unmatchedReads[readKeys[i]]++;
+			}
+		}
+
+		for (int key = 0; key < keyCount; key++) {
+			unmatchedWrites[key] = Math.min(unmatchedWrites[key], unmatchedReads[key]);
+		}
+		return unmatchedWrites;
+	}
+
+	private void reportMissingOrOutOfOrder(final int event) {
+		// Locations are expensive to build, so they are resolved only when reporting
+		context.report(ParcelDetector.MISSING_OR_OUT_OF_ORDER, getMethodContainer(eventLog.getMethodIndex(event)),
+				null, context.getLocationForLine(eventLog.getLine(event), null, null, null),
+				ParcelDetector.MESSAGE_ERROR);
+	}
+
+	@Nullable
+	private MethodNode getMethodContainer(final int methodIndex) {
+		if (methodIndex < 0) {
+			return null;
+		}
+		final List<MethodNode> methods = classNode.methods;
+		return methods.get(methodIndex);
+	}
+
+	/**
+	 * The fields of one side of the alignment. Fields inherited through a super
+	 * call refer to the event of the call.
+	 */
+	private static final class AlignedFields {
+		/* default */ final int[] events;
+		/* default */ final long[] ids;
+		/* default */ final boolean[] inherited;
+
+		/* default */ AlignedFields(final int length) {
+			events = new int[length];
+			ids = new long[length];
+			inherited = new boolean[length];
+		}
+
+		@Override
+		public String toString() {
+			return "AlignedFields [ length=" + events.length + " ]";
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ParcelClassAnalysis [ className=" + classNode.name + ", dataflow=" + dataflow + " ]";
+	}
+}
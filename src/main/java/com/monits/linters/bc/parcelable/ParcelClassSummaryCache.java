@@ -0,0 +1,208 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable;
+
+import static org.objectweb.asm.Opcodes.ASM5;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.objectweb.asm.tree.ClassNode;
+
+import com.android.tools.lint.detector.api.ClassContext;
+import com.monits.linters.bc.parcelable.models.ParcelClassSummary;
+import com.monits.linters.bc.parcelable.models.ParcelEventLog;
+import com.monits.linters.bc.parcelable.models.ParcelFieldSequence;
+import com.monits.linters.bc.parcelable.visitors.AbstractMethodVisitor;
+import com.monits.linters.bc.parcelable.visitors.ParcelClassVisitor;
+
+/**
+ * Project wide cache of {@link ParcelClassSummary}, keyed by internal class name.
+ * Each class is summarized once, either when it's analyzed or the first time
+ * one of its descendants needs it, no matter how many descendants it has.
+ * The fields written and read through each super class chain are resolved once
+ * too, so subclasses are checked against the sequence of their super class.
+ */
+public class ParcelClassSummaryCache {
+	private final ConcurrentMap<String, ParcelClassSummary> summaries;
+	private final ConcurrentMap<String, ParcelFieldSequence> writeSequences;
+	private final ConcurrentMap<String, ParcelFieldSequence> readSequences;
+	private final boolean dataflow;
+
+	/**
+	 * Creates a new, empty, ParcelClassSummaryCache instance.
+	 *
+	 * @param dataflow Whether to summarize classes following the flow of values
+	 */
+	public ParcelClassSummaryCache(final boolean dataflow) {
+		summaries = new ConcurrentHashMap<>();
+		writeSequences = new ConcurrentHashMap<>();
+		readSequences = new ConcurrentHashMap<>();
+		this.dataflow = dataflow;
+	}
+
+	/**
+	 * Stores the summary of an analyzed class
+	 *
+	 * @param classNode The analyzed class
+	 * @param eventLog The events recorded for the class
+	 */
+	public void putSummary(@Nonnull final ClassNode classNode, @Nonnull final ParcelEventLog eventLog) {
+		summaries.put(classNode.name, summarize(classNode.superName, eventLog));
+	}
+
+	/**
+	 * Retrieves the summary of a class, analyzing it if needed
+	 *
+	 * @param context The context of the class being analyzed
+	 * @param className The internal name of the class to summarize
+	 * @return The summary of the class, or null if the class can't be found
+	 */
+	@CheckForNull
+	public ParcelClassSummary getSummary(@Nonnull final ClassContext context,
+			@Nonnull final String className) {
+		final ParcelClassSummary summary = summaries.get(className);
+		if (summary != null) {
+			return summary;
+		}
+
+		final ClassNode classNode = context.getDriver().findClass(context, className, 0);
+		if (classNode == null) {
+			return null;
+		}
+		final ParcelEventLog eventLog = new ParcelEventLog();
+		new ParcelClassVisitor(ASM5, classNode, eventLog, dataflow).visitClass();
+		putSummary(classNode, eventLog);
+		return summaries.get(className);
+	}
+
+	/**
+	 * Retrieves the fields a class writes or reads, with the calls to its super
+	 * class replaced by the fields of the super class, all the way up the chain
+	 *
+	 * @param context The context of the class being analyzed
+	 * @param className The internal name of the class
+	 * @param kind {@link ParcelEventLog#WRITE_FIELD} or {@link ParcelEventLog#READ_FIELD}
+	 * @return The fields of the whole chain, or null if a class in the chain can't be found
+	 */
+	@CheckForNull
+	public ParcelFieldSequence getFieldSequence(@Nonnull final ClassContext context,
+			@Nonnull final String className, final int kind) {
+		final ConcurrentMap<String, ParcelFieldSequence> sequences =
+				kind == ParcelEventLog.WRITE_FIELD ? writeSequences : readSequences;
+		final ParcelFieldSequence cached = sequences.get(className);
+		if (cached != null) {
+			return cached;
+		}
+
+		final ParcelClassSummary summary = getSummary(context, className);
+		if (summary == null) {
+			return null;
+		}
+
+		ParcelFieldSequence sequence = summary.getFields(kind);
+		if (summary.callsSuper(kind)) {
+			final String superName = summary.getSuperName();
+			final ParcelFieldSequence inherited = superName == null ? null
+					: getFieldSequence(context, superName, kind);
+			if (inherited == null) {
+				return null;
+			}
+			sequence = sequence.expandSuperCalls(inherited);
+		}
+		sequences.put(className, sequence);
+		return sequence;
+	}
+
+	/**
+	 * Checks if a class, or any super class it delegates to, writes or reads
+	 * anything from the Parcel in a given direction
+	 *
+	 * @param context The context of the class being analyzed
+	 * @param className The internal name of the class to check
+	 * @param kind {@link ParcelEventLog#WRITE_FIELD} or {@link ParcelEventLog#READ_FIELD}
+	 * @return true if the class uses the Parcel, or if it can't be known
+	 */
+	public boolean usesParcel(@Nonnull final ClassContext context, @Nonnull final String className,
+			final int kind) {
+		String current = className;
+		while (current != null) {
+			final ParcelClassSummary summary = getSummary(context, current);
+			if (summary == null) {
+				return true;
+			}
+			if (summary.usesParcel(kind)) {
+				return true;
+			}
+			current = summary.callsSuper(kind) ? summary.getSuperName() : null;
+		}
+		return false;
+	}
+
+	/**
+	 * Forgets every summary, once the project has been checked
+	 */
+	public void clear() {
+		summaries.clear();
+		writeSequences.clear();
+		readSequences.clear();
+	}
+
+	/**
+	 * Summarizes the events recorded for a class
+	 *
+	 * @param superName The internal name of the super class
+	 * @param eventLog The events of the class
+	 * @return The summary of the class
+	 */
+	@Nonnull
+	private static ParcelClassSummary summarize(@Nullable final String superName,
+			@Nonnull final ParcelEventLog eventLog) {
+		boolean writes = false;
+		boolean reads = false;
+		boolean callsSuperWrite = false;
+		boolean callsSuperRead = false;
+		for (int i = 0; i < eventLog.size(); i++) {
+			final boolean superCall = AbstractMethodVisitor.THIS.equals(eventLog.getName(i));
+			switch (eventLog.getKind(i)) {
+			case ParcelEventLog.WRITE_FIELD:
+				callsSuperWrite |= superCall;
+				writes |= !superCall;
+				break;
+			case ParcelEventLog.READ_FIELD:
+				callsSuperRead |= superCall;
+				reads |= !superCall;
+				break;
+			case ParcelEventLog.WRITE_METHOD:
+				writes = true;
+				break;
+			default:
+				reads = true;
+				break;
+			}
+		}
+		return new ParcelClassSummary(superName, ParcelFieldSequence.of(eventLog, ParcelEventLog.WRITE_FIELD),
+				ParcelFieldSequence.of(eventLog, ParcelEventLog.READ_FIELD), writes, reads,
+				callsSuperWrite, callsSuperRead);
+	}
+
+	@Override
+	public String toString() {
+		return "ParcelClassSummaryCache [ summaries=" + summaries.size() + ", dataflow=" + dataflow + " ]";
+	}
+}
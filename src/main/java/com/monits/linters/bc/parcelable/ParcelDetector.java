@@ -13,24 +13,12 @@
  */
 package com.monits.linters.bc.parcelable;
 
-import static org.objectweb.asm.Opcodes.ASM5;
-
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.Nonnull;
 
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.MethodInsnNode;
-import org.objectweb.asm.tree.MethodNode;
 
 import com.android.tools.lint.detector.api.Category;
 import com.android.tools.lint.detector.api.ClassContext;
@@ -41,14 +29,8 @@ import com.android.tools.lint.detector.api.Implementation;
 import com.android.tools.lint.detector.api.Issue;
 import com.android.tools.lint.detector.api.Scope;
 import com.android.tools.lint.detector.api.Severity;
-import com.monits.linters.bc.parcelable.models.Method;
-import com.monits.linters.bc.parcelable.models.ParcelMethodManager;
-import com.monits.linters.bc.parcelable.models.ParcelableField;
-import com.monits.linters.bc.parcelable.models.QueueManager;
-import com.monits.linters.bc.parcelable.visitors.AbstractMethodVisitor;
-import com.monits.linters.bc.parcelable.visitors.ParcelClassVisitor;
-
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import com.monits.linters.bc.parcelable.dataflow.ParcelDataflowAnalyzer;
+import com.monits.linters.bc.parcelable.models.ParcelEventLog;
 
 /**
  *
@@ -60,16 +42,13 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  */
 
 public class ParcelDetector extends Detector implements ClassScanner {
-	private static final String MESSAGE_ERROR = "You are writing and reading in different"
+	private static final Logger LOGGER = Logger.getLogger(ParcelDetector.class.getName());
+	/* default */ static final String MESSAGE_ERROR = "You are writing and reading in different"
 			+ " ways or you forgot to read or write some variables";
-	private final Queue<ParcelableField> writeFieldQueue;
-	private final Queue<ParcelableField> readFieldQueue;
-	private final Queue<Method> readMethodQueue;
-	private final Queue<Method> writeMethodQueue;
-
-	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING" ,
-			justification = "Variable used for local validation only")
-	private boolean classLinted;
+	private final ThreadLocal<ParcelEventLog> eventLogs;
+	private final ParcelClassSummaryCache classSummaries;
+	private final ParcelableClassFilter classFilter;
+	private final boolean dataflow;
 
 	/** The main issue discovered by this detector */
 	public static final Issue MISSING_OR_OUT_OF_ORDER = Issue.create(
@@ -86,112 +65,34 @@ public class ParcelDetector extends Detector implements ClassScanner {
 			new Implementation(ParcelDetector.class, Scope.CLASS_FILE_SCOPE));
 	/**
 	 * Constructs a new {@link com.com.monits.linters.parcelable.checks.ParcelDetector}
-	 * check
+	 * check, following the flow of values if enabled through
+	 * {@link ParcelDataflowAnalyzer#ENABLED_PROPERTY}
 	 */
 	public ParcelDetector() {
-		writeFieldQueue = new LinkedList<>();
-		readFieldQueue = new LinkedList<>();
-		writeMethodQueue = new LinkedList<>();
-		readMethodQueue = new LinkedList<>();
-	}
-
-	@Nonnull
-	@Override
-	public List<String> getApplicableCallOwners() {
-		return Arrays.asList("android/os/Parcel");
-	}
-
-	@Override
-	public void afterCheckFile(@Nonnull final Context context) {
-		reportMissingOrOutOfOrder(context);
-		reportIncompatibleType(context);
-		resetVariables();
-	}
-
-	private void reportIncompatibleType(@Nonnull final Context context) {
-		while (!writeMethodQueue.isEmpty()
-				&& writeMethodQueue.size() == readMethodQueue.size()) {
-			final Method readMethod = readMethodQueue.poll();
-			final Method writeMethod = writeMethodQueue.poll();
-
-			final Collection<String> values = ParcelMethodManager.INSTANCE
-					.getParcelableMethods().get(readMethod.getName());
-			if (values != null && !values.contains(writeMethod.getName())) {
-				((ClassContext) context).report(INCOMPATIBLE_READ_WRITE_TYPE, readMethod.getMethodContainer(),
-						null, readMethod.getLocation(),
-						"Incompatible types: " + readMethod.getName() + " - "
-								+ writeMethod.getName());
+		// Lint creates detectors by itself, so the mode can only come from the environment
+		dataflow = ParcelDataflowAnalyzer.isEnabled();
+		// Event logs are reused by each thread, so their storage isn't allocated again per class
+		eventLogs = new ThreadLocal<ParcelEventLog>() {
+			@Override
+			protected ParcelEventLog initialValue() {
+				return new ParcelEventLog();
 			}
-		}
+		};
+		classSummaries = new ParcelClassSummaryCache(dataflow);
+		classFilter = new ParcelableClassFilter();
 	}
 
-	private void reportMissingOrOutOfOrder(@Nonnull final Context context) {
-		if (!(context instanceof ClassContext)) {
-			throw new AssertionError("The context must be a ClassContext to allow limit the scope of the issue");
-		}
-		final ClassContext cContext = (ClassContext) context;
-		while (!writeFieldQueue.isEmpty() && !readFieldQueue.isEmpty()) {
-			final ParcelableField writeField = writeFieldQueue.peek();
-			final ParcelableField readField = readFieldQueue.peek();
-			if (writeField.equals(readField)) {
-				writeFieldQueue.remove(writeField);
-				readFieldQueue.remove(readField);
-			// writeField contains a Field named "this" if the writeToParcel Method is calling super.writeToParcel(...)
-			} else if (AbstractMethodVisitor.THIS.equals(writeField.getName())) {
-				// we use the readField position to pointing the missing super call
-				reportMissingOrOutOfOrder(cContext, readField);
-				writeFieldQueue.remove(writeField);
-			// readField contains a Field named "this" if the Constructor is calling super(in)
-			} else if (AbstractMethodVisitor.THIS.equals(readField.getName())) {
-				// we use the writeField position to pointing the missing super call
-				reportMissingOrOutOfOrder(cContext, writeField);
-				readFieldQueue.remove(readField);
-			} else {
-				reportMissingOrOutOfOrder(cContext, writeField);
-				writeFieldQueue.remove(writeField);
-				readFieldQueue.remove(writeField);
-			}
-		}
-		reportMissingVariables(cContext, readFieldQueue);
-		reportMissingVariables(cContext, writeFieldQueue);
-	}
-
-	private void reportMissingOrOutOfOrder(@Nonnull final ClassContext context,
-			@Nonnull final ParcelableField element) {
-		context.report(MISSING_OR_OUT_OF_ORDER, element.getMethodContainer(), null,
-				element.getLocation(), MESSAGE_ERROR);
-	}
-
-	private void reportMissingVariables(@Nonnull final ClassContext context,
-			@Nonnull final Queue<ParcelableField> queue) {
-		for (final ParcelableField field : queue) {
-			reportMissingOrOutOfOrder(context, field);
-		}
-	}
-
-	private void resetVariables() {
-		writeFieldQueue.clear();
-		readFieldQueue.clear();
-		writeMethodQueue.clear();
-		readMethodQueue.clear();
-		classLinted = false;
+	@Override
+	public void afterCheckProject(@Nonnull final Context context) {
+		LOGGER.log(Level.FINE, "Skipped {0} classes that are not Parcelable",
+				classFilter.getSkippedClassCount());
+		classSummaries.clear();
 	}
 
 	@Override
-	public void checkCall(@Nonnull final ClassContext context, @Nonnull final ClassNode classNode,
-			@Nonnull final MethodNode method, @Nonnull final MethodInsnNode call) {
-		if (!classLinted) {
-			try {
-				final ClassReader cr = new ClassReader(new FileInputStream(context.file));
-				final QueueManager queueManager = new QueueManager(
-						writeFieldQueue, readFieldQueue, writeMethodQueue,
-						readMethodQueue);
-				cr.accept(new ParcelClassVisitor(ASM5, classNode, context, queueManager, cr), 0);
-				classLinted = true;
-			} catch (final IOException e) {
-				Logger.getLogger(ParcelDetector.class.getName()).log(Level.WARNING,
-						"Error checking the file" + context.file, e);
-			}
+	public void checkClass(@Nonnull final ClassContext context, @Nonnull final ClassNode classNode) {
+		if (classFilter.needsAnalysis(context, classNode)) {
+			new ParcelClassAnalysis(context, classNode, eventLogs.get(), classSummaries, dataflow).analyze();
 		}
 	}
 
@@ -0,0 +1,114 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import com.android.tools.lint.detector.api.ClassContext;
+import com.monits.linters.bc.hierarchy.ClassHierarchy;
+import com.monits.linters.bc.hierarchy.LintTypeResolver;
+import com.monits.linters.bc.hierarchy.Supertypes;
+
+/**
+ * Cheap check, based on the class header only, to skip classes that merely use a Parcel
+ * (such as AIDL stubs and proxies) before doing any instruction analysis.
+ * Only classes calling the Parcel, declaring writeToParcel and implementing
+ * Parcelable somewhere up their hierarchy need to be analyzed.
+ */
+public class ParcelableClassFilter {
+	private static final String PARCEL_CLASS = "android/os/Parcel";
+	private static final String PARCELABLE_INTERFACE = "android/os/Parcelable";
+	private static final String WRITE_TO_PARCEL_METHOD = "writeToParcel";
+	private static final String WRITE_TO_PARCEL_DESC = "(Landroid/os/Parcel;I)V";
+	private static final int CONSTANT_CLASS = 7;
+
+	private final AtomicInteger skippedClasses;
+
+	/**
+	 * Creates a new ParcelableClassFilter instance.
+	 */
+	public ParcelableClassFilter() {
+		skippedClasses = new AtomicInteger();
+	}
+
+	/**
+	 * Checks if a class must be analyzed, counting it as skipped otherwise
+	 *
+	 * @param context The context of the class
+	 * @param classNode The class to check
+	 * @return true if the class is a Parcelable calling the Parcel and declaring writeToParcel
+	 */
+	public boolean needsAnalysis(@Nonnull final ClassContext context, @Nonnull final ClassNode classNode) {
+		if (callsParcel(context) && declaresWriteToParcel(classNode) && isParcelable(context, classNode)) {
+			return true;
+		}
+		skippedClasses.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * @return The number of classes skipped so far
+	 */
+	public int getSkippedClassCount() {
+		return skippedClasses.get();
+	}
+
+	/**
+	 * Checks the CONSTANT_Class entries of the class constant pool, any call to
+	 * a Parcel method must refer to the Parcel class through one of them.
+	 *
+	 * @param context The context of the class being checked
+	 * @return true if the class calls any Parcel method
+	 */
+	private boolean callsParcel(@Nonnull final ClassContext context) {
+		final ClassReader reader = new ClassReader(context.getBytecode());
+		final char[] buffer = new char[reader.getMaxStringLength()];
+		for (int i = 1; i < reader.getItemCount(); i++) {
+			final int offset = reader.getItem(i);
+			// The second slot of longs and doubles has no entry
+			if (offset > 0 && reader.b[offset - 1] == CONSTANT_CLASS
+					&& PARCEL_CLASS.equals(reader.readUTF8(offset, buffer))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean declaresWriteToParcel(@Nonnull final ClassNode classNode) {
+		for (final MethodNode method : classNode.methods) {
+			if (WRITE_TO_PARCEL_METHOD.equals(method.name) && WRITE_TO_PARCEL_DESC.equals(method.desc)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isParcelable(@Nonnull final ClassContext context, @Nonnull final ClassNode classNode) {
+		final Supertypes supertypes = ClassHierarchy.get(context)
+				.getSupertypes(new LintTypeResolver(context), classNode.name);
+		// Types we can't see (such as the framework's) may be Parcelable, so they are analyzed
+		return supertypes.contains(PARCELABLE_INTERFACE) || !supertypes.isComplete();
+	}
+
+	@Override
+	public String toString() {
+		return "ParcelableClassFilter [ skippedClasses=" + skippedClasses + " ]";
+	}
+}
@@ -0,0 +1,236 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Aligns two sequences of interned keys, finding the longest common subsequence
+ * with Myers' O(ND) difference algorithm. The edit distance explored is bounded,
+ * so the cost stays linear on the size of the sequences. Past that bound, common
+ * keys are matched through the increasing subsequence of their positions.
+ */
+public final class SequenceAligner {
+	/** Marks an element with no counterpart in the other sequence */
+	public static final int UNMATCHED = -1;
+
+	/* default */ static final int MAX_EDIT_DISTANCE = 64;
+
+	private SequenceAligner() {
+		throw new AssertionError("Utility class can't be instantiated");
+	}
+
+	/**
+	 * Aligns both sequences. Common prefix and suffix are matched in linear time,
+	 * the remaining window is diffed up to {@link #MAX_EDIT_DISTANCE} edits.
+	 * If there are more differences than that, the window is aligned by
+	 * {@link #alignCommonKeys}, which still matches every common key it can keep in order.
+	 *
+	 * @param a The first sequence
+	 * @param b The second sequence
+	 * @param aMatches Filled with the index in b matched by each element of a, or {@link #UNMATCHED}
+	 * @param bMatches Filled with the index in a matched by each element of b, or {@link #UNMATCHED}
+	 */
+	public static void align(@Nonnull final int[] a, @Nonnull final int[] b,
+			@Nonnull final int[] aMatches, @Nonnull final int[] bMatches) {
+		align(a, a.length, b, b.length, aMatches, bMatches);
+	}
+
+	/**
+	 * Aligns the first aLength elements of a with the first bLength elements of b.
+	 *
+	 * @param a The first sequence
+	 * @param aLength The number of elements of a to align
+	 * @param b The second sequence
+	 * @param bLength The number of elements of b to align
+	 * @param aMatches Filled with the index in b matched by each element of a, or {@link #UNMATCHED}
+	 * @param bMatches Filled with the index in a matched by each element of b, or {@link #UNMATCHED}
+	 */
+	public static void align(@Nonnull final int[] a, final int aLength, @Nonnull final int[] b,
+			final int bLength, @Nonnull final int[] aMatches, @Nonnull final int[] bMatches) {
+		Arrays.fill(aMatches, 0, aLength, UNMATCHED);
+		Arrays.fill(bMatches, 0, bLength, UNMATCHED);
+
+		// Common prefix
+		int start = 0;
+		while (start < aLength && start < bLength && a[start] == b[start]) {
+			aMatches[start] = start;
+			bMatches[start] = start;
+			start++;
+		}
+
+		// Common suffix
+		int aEnd = aLength;
+		int bEnd = bLength;
+		while (aEnd > start && bEnd > start && a[aEnd - 1] == b[bEnd - 1]) {
+			aEnd--;
+			bEnd--;
+			aMatches[aEnd] = bEnd;
+			bMatches[bEnd] = aEnd;
+		}
+
+		if (aEnd > start && bEnd > start) {
+			diff(a, start, aEnd, b, start, bEnd, aMatches, bMatches);
+		}
+	}
+
+	private static void diff(@Nonnull final int[] a, final int aStart, final int aEnd,
+			@Nonnull final int[] b, final int bStart, final int bEnd,
+			@Nonnull final int[] aMatches, @Nonnull final int[] bMatches) {
+		final int n = aEnd - aStart;
+		final int m = bEnd - bStart;
+		final int max = Math.min(n + m, MAX_EDIT_DISTANCE);
+		final int offset = max + 1;
+
+		// v[offset + k] is the furthest x reached on diagonal k
+		final int[] v = new int[2 * max + 3];
+		final List<int[]> trace = new ArrayList<>();
+
+		for (int d = 0; d <= max; d++) {
+			trace.add(v.clone());
+			for (int k = -d; k <= d; k += 2) {
+				int x;
+				if (k == -d || k != d && v[offset + k - 1] < v[offset + k + 1]) {
+					x = v[offset + k + 1];
+				} else {
+					x = v[offset + k - 1] + 1;
+				}
+				int y = x - k;
+				while (x < n && y < m && a[aStart + x] == b[bStart + y]) {
+					x++;
+					y++;
+				}
+				v[offset + k] = x;
+
+				if (x >= n && y >= m) {
+					backtrack(trace, d, n, m, offset, aStart, bStart, aMatches, bMatches);
+					return;
+				}
+			}
+		}
+
+		// Too many differences for the bounded diff
+		alignCommonKeys(a, aStart, aEnd, b, bStart, bEnd, aMatches, bMatches);
+	}
+
+	/**
+	 * Matches the longest chain of equal keys appearing in the same order in both
+	 * windows (Hunt-Szymanski). Each key is matched against at most its first
+	 * {@link #MAX_EDIT_DISTANCE} occurrences in b, so the cost is O(n log n).
+	 */
+	private static void alignCommonKeys(@Nonnull final int[] a, final int aStart, final int aEnd,
+			@Nonnull final int[] b, final int bStart, final int bEnd,
+			@Nonnull final int[] aMatches, @Nonnull final int[] bMatches) {
+		final Map<Integer, List<Integer>> positions = new HashMap<>();
+		for (int j = bStart; j < bEnd; j++) {
+			List<Integer> keyPositions = positions.get(b[j]);
+			if (keyPositions == null) {
+				keyPositions = new ArrayList<>();
+				positions.put(b[j], keyPositions);
+			}
+			if (keyPositions.size() < MAX_EDIT_DISTANCE) {
+				keyPositions.add(j);
+			}
+		}
+
+		// tailB[l] is the smallest b index ending a chain of l + 1 matches
+		final int maxLength = Math.min(aEnd - aStart, bEnd - bStart);
+		final int[] tailB = new int[maxLength];
+		final int[] tailMatch = new int[maxLength];
+		// Each match is stored as { a index, b index, previous match in its chain }
+		final List<int[]> matches = new ArrayList<>();
+		int length = 0;
+
+		for (int i = aStart; i < aEnd; i++) {
+			final List<Integer> keyPositions = positions.get(a[i]);
+			if (keyPositions == null) {
+				continue;
+			}
+
+			// Going backwards, a single element of a never extends its own chain
+			for (int p = keyPositions.size() - 1; p >= 0; p--) {
+				final int j = keyPositions.get(p);
+				int low = 0;
+				int high = length;
+				while (low < high) {
+					final int mid = (low + high) >>> 1;
+					if (tailB[mid] < j) {
+						low = mid + 1;
+					} else {
+						high = mid;
+					}
+				}
+
+				matches.add(new int[] { i, j, low == 0 ? UNMATCHED : tailMatch[low - 1] });
+				tailB[low] = j;
+				tailMatch[low] = matches.size() - 1;
+				if (low == length) {
+					length++;
+				}
+			}
+		}
+
+		int m = length == 0 ? UNMATCHED : tailMatch[length - 1];
+		while (m != UNMATCHED) {
+			final int[] match = matches.get(m);
+			aMatches[match[0]] = match[1];
+			bMatches[match[1]] = match[0];
+			m = match[2];
+		}
+	}
+
+	private static void backtrack(@Nonnull final List<int[]> trace, final int distance,
+			final int n, final int m, final int offset, final int aStart, final int bStart,
+			@Nonnull final int[] aMatches, @Nonnull final int[] bMatches) {
+		int x = n;
+		int y = m;
+		for (int d = distance; d >= 0; d--) {
+			final int[] v = trace.get(d);
+			final int k = x - y;
+
+			final int prevX;
+			final int prevY;
+			if (d == 0) {
+				prevX = 0;
+				prevY = 0;
+			} else {
+				final int prevK;
+				if (k == -d || k != d && v[offset + k - 1] < v[offset + k + 1]) {
+					prevK = k + 1;
+				} else {
+					prevK = k - 1;
+				}
+				prevX = v[offset + prevK];
+				prevY = prevX - prevK;
+			}
+
+			// Walk back the snake, every step on it is a match
+			while (x > prevX && y > prevY) {
+				x--;
+				y--;
+				aMatches[aStart + x] = bStart + y;
+				bMatches[bStart + y] = aStart + x;
+			}
+
+			x = prevX;
+			y = prevY;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable.dataflow;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.SourceValue;
+
+/**
+ * Pool of analysis frames, grouped by shape (number of locals and stack size),
+ * so the frames of a method can be reused to analyze the next one.
+ */
+public class FramePool {
+	private final Map<Long, Deque<Frame<SourceValue>>> frames;
+
+	/**
+	 * Creates a new, empty, FramePool instance.
+	 */
+	public FramePool() {
+		frames = new HashMap<>();
+	}
+
+	/**
+	 * Takes a frame from the pool
+	 *
+	 * @param locals The number of locals of the frame
+	 * @param stack The maximum stack size of the frame
+	 * @return A frame of the given shape, with stale values, or null if there is none
+	 */
+	@CheckForNull
+	public Frame<SourceValue> acquire(final int locals, final int stack) {
+		final Deque<Frame<SourceValue>> available = frames.get(getShape(locals, stack));
+		return available == null ? null : available.poll();
+	}
+
+	/**
+	 * Returns frames to the pool
+	 *
+	 * @param locals The number of locals of the frames
+	 * @param stack The maximum stack size of the frames
+	 * @param released The frames no longer in use
+	 */
+	public void release(final int locals, final int stack,
+			@Nonnull final Collection<Frame<SourceValue>> released) {
+		final Long shape = getShape(locals, stack);
+		Deque<Frame<SourceValue>> available = frames.get(shape);
+		if (available == null) {
+			available = new ArrayDeque<>(released.size());
+			frames.put(shape, available);
+		}
+		available.addAll(released);
+	}
+
+	@Nonnull
+	private static Long getShape(final int locals, final int stack) {
+		return (long) locals << 32 | stack & 0xFFFFFFFFL;
+	}
+
+	@Override
+	public String toString() {
+		return "FramePool [ shapes=" + frames.size() + " ]";
+	}
+}
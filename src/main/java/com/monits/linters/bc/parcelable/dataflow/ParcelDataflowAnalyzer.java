@@ -0,0 +1,542 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable.dataflow;
+
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.ARRAYLENGTH;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.DCMPG;
+import static org.objectweb.asm.Opcodes.DNEG;
+import static org.objectweb.asm.Opcodes.DREM;
+import static org.objectweb.asm.Opcodes.DUP;
+import static org.objectweb.asm.Opcodes.DUP2_X2;
+import static org.objectweb.asm.Opcodes.GETFIELD;
+import static org.objectweb.asm.Opcodes.I2L;
+import static org.objectweb.asm.Opcodes.I2S;
+import static org.objectweb.asm.Opcodes.IADD;
+import static org.objectweb.asm.Opcodes.IALOAD;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INEG;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.ISHL;
+import static org.objectweb.asm.Opcodes.ISTORE;
+import static org.objectweb.asm.Opcodes.LCMP;
+import static org.objectweb.asm.Opcodes.LXOR;
+import static org.objectweb.asm.Opcodes.NEW;
+import static org.objectweb.asm.Opcodes.PUTFIELD;
+import static org.objectweb.asm.Opcodes.SALOAD;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.SourceInterpreter;
+import org.objectweb.asm.tree.analysis.SourceValue;
+
+import com.monits.linters.bc.parcelable.models.MethodIndex;
+import com.monits.linters.bc.parcelable.models.MethodSummaryCache;
+import com.monits.linters.bc.parcelable.models.ParcelEventLog;
+import com.monits.linters.bc.parcelable.models.ParcelMethodManager;
+import com.monits.linters.bc.parcelable.visitors.AbstractMethodVisitor;
+import com.monits.linters.bc.parcelable.visitors.ParcelConstructorMethodVisitor;
+import com.monits.linters.bc.parcelable.visitors.WriteToParcelMethodVisitor;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Records the Parcel traffic of a class following the flow of values, instead of
+ * matching field instructions. Only fields whose value reaches a Parcel write are
+ * written, and only fields assigned a value coming from a Parcel read are read,
+ * even when routed through locals, getters, casts or ternaries.
+ *
+ * Methods bigger than the instruction budget, or that can't be analyzed, fall
+ * back to the plain instruction visitors.
+ */
+@SuppressFBWarnings(value = "CD_CIRCULAR_DEPENDENCY",
+		justification = "Falls back to the method visitors, that never depend on this class")
+public class ParcelDataflowAnalyzer {
+	/** System property enabling the dataflow mode */
+	public static final String ENABLED_PROPERTY = "com.monits.linters.parcel.dataflow";
+	/** System property with the maximum number of instructions of a method analyzed with dataflow */
+	public static final String BUDGET_PROPERTY = "com.monits.linters.parcel.dataflow.budget";
+
+	private static final int DEFAULT_INSTRUCTION_BUDGET = 5000;
+	private static final int MAX_GETTER_DEPTH = 4;
+	private static final String PARCEL = "android/os/Parcel";
+	private static final String PARCEL_DESC = "Landroid/os/Parcel;";
+	private static final String CONSTRUCTOR = "<init>";
+
+	private final int api;
+	private final ClassNode classNode;
+	private final MethodIndex methods;
+	private final ParcelEventLog eventLog;
+	private final MethodSummaryCache writeSummaryCache;
+	private final MethodSummaryCache readSummaryCache;
+	private final SourceInterpreter interpreter;
+	private final FramePool framePool;
+	private final int instructionBudget;
+
+	/**
+	 * Creates a new ParcelDataflowAnalyzer instance.
+	 *
+	 * @param api The api for the fallback method visitors
+	 * @param classNode The analyzed class
+	 * @param methods The index of the methods of the class
+	 * @param eventLog The log where to record fields and methods
+	 * @param writeSummaryCache The cache of already analyzed write helper methods
+	 * @param readSummaryCache The cache of already analyzed read helper methods
+	 * @param instructionBudget The maximum number of instructions of a method analyzed with dataflow
+	 */
+	public ParcelDataflowAnalyzer(final int api, @Nonnull final ClassNode classNode,
+			@Nonnull final MethodIndex methods, @Nonnull final ParcelEventLog eventLog,
+			@Nonnull final MethodSummaryCache writeSummaryCache,
+			@Nonnull final MethodSummaryCache readSummaryCache, final int instructionBudget) {
+		this.api = api;
+		this.classNode = classNode;
+		this.methods = methods;
+		this.eventLog = eventLog;
+		this.writeSummaryCache = writeSummaryCache;
+		this.readSummaryCache = readSummaryCache;
+		this.instructionBudget = instructionBudget;
+		interpreter = new SourceInterpreter();
+		framePool = new FramePool();
+	}
+
+	/**
+	 * @return true if the dataflow mode was enabled through {@link #ENABLED_PROPERTY}
+	 */
+	public static boolean isEnabled() {
+		return Boolean.getBoolean(ENABLED_PROPERTY);
+	}
+
+	/**
+	 * @return The instruction budget set through {@link #BUDGET_PROPERTY}, or the default one
+	 */
+	public static int getDefaultInstructionBudget() {
+		return Integer.getInteger(BUDGET_PROPERTY, DEFAULT_INSTRUCTION_BUDGET);
+	}
+
+	/**
+	 * Records the fields and Parcel methods written by a method
+	 *
+	 * @param methodIndex The index of the writeToParcel method, or a write helper
+	 */
+	public void analyzeWrite(final int methodIndex) {
+		analyze(methodIndex, true);
+	}
+
+	/**
+	 * Records the fields and Parcel methods read by a method
+	 *
+	 * @param methodIndex The index of the Parcel constructor, or a read helper
+	 */
+	public void analyzeRead(final int methodIndex) {
+		analyze(methodIndex, false);
+	}
+
+	private void analyze(final int methodIndex, final boolean write) {
+		final MethodNode method = methods.getMethod(methodIndex);
+		final MethodFrames frames = analyzeFrames(method);
+		if (frames == null) {
+			// Too big, or not analyzable, just match the instructions
+			method.instructions.accept(write
+				? new WriteToParcelMethodVisitor(api, classNode, methods, methodIndex, eventLog, writeSummaryCache)
+				: new ParcelConstructorMethodVisitor(api, classNode, methods, methodIndex, eventLog,
+						readSummaryCache));
+			return;
+		}
+
+		try {
+			recordEvents(methodIndex, frames, write);
+		} finally {
+			frames.release();
+		}
+	}
+
+	@CheckForNull
+	private MethodFrames analyzeFrames(@Nonnull final MethodNode method) {
+		final int size = method.instructions.size();
+		if (size == 0 || size > instructionBudget) {
+			return null;
+		}
+
+		final PooledAnalyzer analyzer = new PooledAnalyzer(interpreter, framePool);
+		try {
+			return new MethodFrames(method, analyzer.analyze(classNode.name, method), analyzer);
+		} catch (final AnalyzerException e) {
+			analyzer.release();
+			return null;
+		}
+	}
+
+	private void recordEvents(final int methodIndex, @Nonnull final MethodFrames frames, final boolean write) {
+		int line = 0;
+		for (AbstractInsnNode insn = frames.method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+			if (insn instanceof LineNumberNode) {
+				line = ((LineNumberNode) insn).line;
+			} else if (insn instanceof MethodInsnNode) {
+				recordCall(methodIndex, frames, (MethodInsnNode) insn, line, write);
+			} else if (!write && insn.getOpcode() == PUTFIELD) {
+				recordPutField(methodIndex, frames, (FieldInsnNode) insn, line);
+			}
+		}
+	}
+
+	private void recordCall(final int methodIndex, @Nonnull final MethodFrames frames,
+			@Nonnull final MethodInsnNode call, final int line, final boolean write) {
+		final Frame<SourceValue> frame = frames.getFrame(call);
+		if (frame == null) {
+			// Unreachable code
+			return;
+		}
+
+		final MethodNode method = frames.method;
+		final int fieldKind = write ? ParcelEventLog.WRITE_FIELD : ParcelEventLog.READ_FIELD;
+		if (call.getOpcode() == INVOKESPECIAL && AbstractMethodVisitor.isSuperCall(classNode,
+				method.name, method.desc, call.owner, call.name, call.desc)) {
+			eventLog.add(fieldKind, AbstractMethodVisitor.THIS, call.owner, line, methodIndex);
+		} else if (PARCEL.equals(call.owner)) {
+			final ParcelMethodManager parcelMethods = ParcelMethodManager.INSTANCE;
+			if (write ? parcelMethods.isWriteMethod(call.name) : parcelMethods.isReadMethod(call.name)) {
+				recordArgumentFields(methodIndex, frames, call, frame, fieldKind, line);
+				eventLog.add(write ? ParcelEventLog.WRITE_METHOD : ParcelEventLog.READ_METHOD,
+						call.name, null, line, methodIndex);
+			}
+		} else if (isHelperCall(method, call)) {
+			if (write) {
+				recordArgumentFields(methodIndex, frames, call, frame, fieldKind, line);
+			}
+			analyzeHelper(methods.indexOf(call.name, call.desc), write);
+		}
+	}
+
+	private void recordArgumentFields(final int methodIndex, @Nonnull final MethodFrames frames,
+			@Nonnull final MethodInsnNode call, @Nonnull final Frame<SourceValue> frame,
+			final int fieldKind, final int line) {
+		final Map<String, FieldInsnNode> fields = new LinkedHashMap<>();
+		final Set<AbstractInsnNode> visited = new HashSet<>();
+		for (final SourceValue argument : getTopOfStack(frame, Type.getArgumentTypes(call.desc).length)) {
+			collectFields(frames, argument, 0, visited, fields);
+		}
+		for (final FieldInsnNode field : fields.values()) {
+			eventLog.add(fieldKind, field.name, field.desc, line, methodIndex);
+		}
+	}
+
+	private void recordPutField(final int methodIndex, @Nonnull final MethodFrames frames,
+			@Nonnull final FieldInsnNode putField, final int line) {
+		final Frame<SourceValue> frame = frames.getFrame(putField);
+		if (frame != null && derivesFromParcel(frames, getTopOfStack(frame, 1).get(0),
+				new HashSet<AbstractInsnNode>())) {
+			eventLog.add(ParcelEventLog.READ_FIELD, putField.name, putField.desc, line, methodIndex);
+		}
+	}
+
+	private void analyzeHelper(final int helperIndex, final boolean write) {
+		final MethodSummaryCache summaryCache = write ? writeSummaryCache : readSummaryCache;
+		if (summaryCache.isSummarized(helperIndex)) {
+			eventLog.addRange(summaryCache.getSummaryStart(helperIndex), summaryCache.getSummaryEnd(helperIndex));
+		} else if (summaryCache.beginSummary(helperIndex, eventLog.size())) {
+			analyze(helperIndex, write);
+			summaryCache.endSummary(helperIndex, eventLog.size());
+		}
+		// else, it's a recursive call, the method is already being accounted for
+	}
+
+	/**
+	 * Checks if a call targets a method of the class that uses the Parcel itself,
+	 * rather than just computing a value
+	 */
+	private boolean isHelperCall(@Nonnull final MethodNode method, @Nonnull final MethodInsnNode call) {
+		if (!classNode.name.equals(call.owner) || methods.indexOf(call.name, call.desc) == MethodIndex.NOT_FOUND
+				|| call.getOpcode() == INVOKESPECIAL && call.name.equals(method.name)) {
+			return false;
+		}
+		return Type.getReturnType(call.desc) == Type.VOID_TYPE || hasParcelArgument(call.desc);
+	}
+
+	private boolean isGetterCall(@Nonnull final AbstractInsnNode insn, final int depth) {
+		if (depth >= MAX_GETTER_DEPTH || !(insn instanceof MethodInsnNode)
+				|| insn.getOpcode() != INVOKEVIRTUAL && insn.getOpcode() != INVOKESPECIAL) {
+			return false;
+		}
+		final MethodInsnNode call = (MethodInsnNode) insn;
+		return classNode.name.equals(call.owner) && !CONSTRUCTOR.equals(call.name)
+				&& Type.getArgumentTypes(call.desc).length == 0
+				&& Type.getReturnType(call.desc) != Type.VOID_TYPE
+				&& methods.indexOf(call.name, call.desc) != MethodIndex.NOT_FOUND;
+	}
+
+	private static boolean hasParcelArgument(@Nonnull final String desc) {
+		return desc.lastIndexOf(PARCEL_DESC, desc.indexOf(')')) != -1;
+	}
+
+	/**
+	 * Collects the fields a value is computed from
+	 *
+	 * @param frames The frames of the method computing the value
+	 * @param value The value to trace
+	 * @param depth The number of getters traversed so far
+	 * @param visited The instructions already traced
+	 * @param fields Where to collect the fields, keyed by owner, name and desc
+	 */
+	private void collectFields(@Nonnull final MethodFrames frames, @Nonnull final SourceValue value,
+			final int depth, @Nonnull final Set<AbstractInsnNode> visited,
+			@Nonnull final Map<String, FieldInsnNode> fields) {
+		for (final AbstractInsnNode source : frames.getSources(value)) {
+			if (!visited.add(source)) {
+				continue;
+			}
+
+			if (source.getOpcode() == GETFIELD) {
+				final FieldInsnNode field = (FieldInsnNode) source;
+				final String key = field.owner + '.' + field.name + ':' + field.desc;
+				if (!fields.containsKey(key)) {
+					fields.put(key, field);
+				}
+			} else if (isGetterCall(source, depth)) {
+				final MethodInsnNode call = (MethodInsnNode) source;
+				collectReturnedFields(methods.getMethod(methods.indexOf(call.name, call.desc)), depth + 1, fields);
+			} else {
+				for (final SourceValue operand : getOperands(frames, source)) {
+					collectFields(frames, operand, depth, visited, fields);
+				}
+			}
+		}
+	}
+
+	private void collectReturnedFields(@Nonnull final MethodNode getter, final int depth,
+			@Nonnull final Map<String, FieldInsnNode> fields) {
+		final MethodFrames frames = analyzeFrames(getter);
+		if (frames == null) {
+			return;
+		}
+
+		try {
+			final Set<AbstractInsnNode> visited = new HashSet<>();
+			for (AbstractInsnNode insn = getter.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+				final Frame<SourceValue> frame = frames.getFrame(insn);
+				if (frame != null && insn.getOpcode() >= IRETURN && insn.getOpcode() <= ARETURN) {
+					collectFields(frames, getTopOfStack(frame, 1).get(0), depth, visited, fields);
+				}
+			}
+		} finally {
+			frames.release();
+		}
+	}
+
+	/**
+	 * Checks if a value comes from reading the Parcel
+	 *
+	 * @param frames The frames of the method computing the value
+	 * @param value The value to trace
+	 * @param visited The instructions already traced
+	 * @return true if the value is computed from a Parcel read
+	 */
+	private boolean derivesFromParcel(@Nonnull final MethodFrames frames, @Nonnull final SourceValue value,
+			@Nonnull final Set<AbstractInsnNode> visited) {
+		for (final AbstractInsnNode source : frames.getSources(value)) {
+			if (!visited.add(source)) {
+				continue;
+			}
+
+			if (source instanceof MethodInsnNode) {
+				final MethodInsnNode call = (MethodInsnNode) source;
+				if (PARCEL.equals(call.owner) && ParcelMethodManager.INSTANCE.isReadMethod(call.name)
+						|| hasParcelArgument(call.desc)) {
+					return true;
+				}
+			}
+
+			for (final SourceValue operand : getOperands(frames, source)) {
+				if (derivesFromParcel(frames, operand, visited)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Retrieves the values an instruction computes its result from
+	 *
+	 * @param frames The frames of the method containing the instruction
+	 * @param insn The instruction producing a value
+	 * @return The values used by the instruction
+	 */
+	@Nonnull
+	private List<SourceValue> getOperands(@Nonnull final MethodFrames frames, @Nonnull final AbstractInsnNode insn) {
+		final Frame<SourceValue> frame = frames.getFrame(insn);
+		if (frame == null) {
+			return Collections.emptyList();
+		}
+
+		final int opcode = insn.getOpcode();
+		if (opcode >= ILOAD && opcode <= ALOAD) {
+			return Collections.singletonList(frame.getLocal(((VarInsnNode) insn).var));
+		} else if (insn instanceof MethodInsnNode) {
+			final int arguments = Type.getArgumentTypes(((MethodInsnNode) insn).desc).length;
+			return getTopOfStack(frame, opcode == INVOKESTATIC ? arguments : arguments + 1);
+		} else if (opcode == NEW) {
+			return getConstructorArguments(frames, (TypeInsnNode) insn);
+		} else if (opcode >= ISTORE && opcode <= ASTORE || opcode >= DUP && opcode <= DUP2_X2
+				|| opcode >= INEG && opcode <= DNEG || opcode >= I2L && opcode <= I2S
+				|| opcode == CHECKCAST || opcode == ARRAYLENGTH) {
+			return getTopOfStack(frame, 1);
+		} else if (opcode >= IADD && opcode <= DREM || opcode >= ISHL && opcode <= LXOR
+				|| opcode >= LCMP && opcode <= DCMPG || opcode >= IALOAD && opcode <= SALOAD) {
+			return getTopOfStack(frame, 2);
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Finds the arguments passed to the constructor of a newly created object
+	 *
+	 * @param frames The frames of the method creating the object
+	 * @param newInsn The instruction creating the object
+	 * @return The arguments of the constructor, or an empty list if it's not found
+	 */
+	@Nonnull
+	private List<SourceValue> getConstructorArguments(@Nonnull final MethodFrames frames,
+			@Nonnull final TypeInsnNode newInsn) {
+		for (AbstractInsnNode insn = newInsn.getNext(); insn != null; insn = insn.getNext()) {
+			if (insn.getOpcode() != INVOKESPECIAL) {
+				continue;
+			}
+			final MethodInsnNode call = (MethodInsnNode) insn;
+			final Frame<SourceValue> frame = frames.getFrame(call);
+			if (frame == null || !CONSTRUCTOR.equals(call.name) || !newInsn.desc.equals(call.owner)) {
+				continue;
+			}
+
+			final int arguments = Type.getArgumentTypes(call.desc).length;
+			final SourceValue receiver = getTopOfStack(frame, arguments + 1).get(0);
+			if (isCreatedBy(frames, receiver, newInsn)) {
+				return getTopOfStack(frame, arguments);
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	private boolean isCreatedBy(@Nonnull final MethodFrames frames, @Nonnull final SourceValue value,
+			@Nonnull final TypeInsnNode newInsn) {
+		for (final AbstractInsnNode source : value.insns) {
+			if (source == newInsn) {
+				return true;
+			}
+			if (source.getOpcode() == DUP) {
+				final Frame<SourceValue> frame = frames.getFrame(source);
+				if (frame != null && getTopOfStack(frame, 1).get(0).insns.contains(newInsn)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Nonnull
+	private static List<SourceValue> getTopOfStack(@Nonnull final Frame<SourceValue> frame, final int count) {
+		final int size = frame.getStackSize();
+		final List<SourceValue> values = new ArrayList<>(count);
+		for (int i = size - count; i < size; i++) {
+			values.add(frame.getStack(i));
+		}
+		return values;
+	}
+
+	@Override
+	public String toString() {
+		return "ParcelDataflowAnalyzer [ className=" + classNode.name
+				+ ", instructionBudget=" + instructionBudget + " ]";
+	}
+
+	/**
+	 * The frames computed for a method, borrowed from the pool until released.
+	 */
+	private static final class MethodFrames {
+		private final MethodNode method;
+		private final Frame<SourceValue>[] frames;
+		private final PooledAnalyzer analyzer;
+
+		/* default */ MethodFrames(@Nonnull final MethodNode method, @Nonnull final Frame<SourceValue>[] frames,
+				@Nonnull final PooledAnalyzer analyzer) {
+			this.method = method;
+			this.frames = frames;
+			this.analyzer = analyzer;
+		}
+
+		/**
+		 * @param insn An instruction of the method
+		 * @return The frame before the instruction is executed, or null if it's unreachable
+		 */
+		@CheckForNull
+		public Frame<SourceValue> getFrame(@Nonnull final AbstractInsnNode insn) {
+			return frames[method.instructions.indexOf(insn)];
+		}
+
+		/**
+		 * @param value A value computed by the method
+		 * @return The instructions producing the value, in the method's order
+		 */
+		@Nonnull
+		public List<AbstractInsnNode> getSources(@Nonnull final SourceValue value) {
+			final List<AbstractInsnNode> sources = new ArrayList<>(value.insns);
+			if (sources.size() > 1) {
+				final InsnList instructions = method.instructions;
+				Collections.sort(sources, new Comparator<AbstractInsnNode>() {
+					@Override
+					public int compare(final AbstractInsnNode o1, final AbstractInsnNode o2) {
+						return Integer.compare(instructions.indexOf(o1), instructions.indexOf(o2));
+					}
+				});
+			}
+			return sources;
+		}
+
+		public void release() {
+			analyzer.release();
+		}
+
+		@Override
+		public String toString() {
+			return "MethodFrames [ method=" + method.name + method.desc + " ]";
+		}
+	}
+}
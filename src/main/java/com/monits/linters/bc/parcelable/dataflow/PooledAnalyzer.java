@@ -0,0 +1,98 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable.dataflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.SourceInterpreter;
+import org.objectweb.asm.tree.analysis.SourceValue;
+
+/**
+ * Source tracking {@link Analyzer} taking its frames from a {@link FramePool}.
+ * Once the frames of the analyzed method are no longer needed, they must be
+ * given back through {@link #release()}.
+ * Only the frames themselves are reused; the array holding them, one slot per
+ * instruction, is still allocated by {@link Analyzer#analyze} for each method,
+ * as ASM offers no way to provide it.
+ */
+public class PooledAnalyzer extends Analyzer<SourceValue> {
+	private final FramePool framePool;
+	private final List<Frame<SourceValue>> acquired;
+	private int maxLocals;
+	private int maxStack;
+
+	/**
+	 * Creates a new PooledAnalyzer instance.
+	 *
+	 * @param interpreter The interpreter tracking the source of each value
+	 * @param framePool The pool where to take frames from
+	 */
+	public PooledAnalyzer(@Nonnull final SourceInterpreter interpreter, @Nonnull final FramePool framePool) {
+		super(interpreter);
+		this.framePool = framePool;
+		acquired = new ArrayList<>();
+	}
+
+	@Override
+	public Frame<SourceValue>[] analyze(final String owner, final MethodNode method) throws AnalyzerException {
+		maxLocals = method.maxLocals;
+		maxStack = method.maxStack;
+		return super.analyze(owner, method);
+	}
+
+	@Override
+	protected Frame<SourceValue> newFrame(final int nLocals, final int nStack) {
+		Frame<SourceValue> frame = framePool.acquire(nLocals, nStack);
+		if (frame == null) {
+			frame = super.newFrame(nLocals, nStack);
+		} else {
+			frame.clearStack();
+		}
+		acquired.add(frame);
+		return frame;
+	}
+
+	@Override
+	protected Frame<SourceValue> newFrame(final Frame<? extends SourceValue> src) {
+		Frame<SourceValue> frame = framePool.acquire(maxLocals, maxStack);
+		if (frame == null) {
+			frame = super.newFrame(src);
+		} else {
+			frame.init(src);
+		}
+		acquired.add(frame);
+		return frame;
+	}
+
+	/**
+	 * Gives back all the frames used by the last analysis to the pool
+	 */
+	public void release() {
+		framePool.release(maxLocals, maxStack, acquired);
+		acquired.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "PooledAnalyzer [ acquired=" + acquired.size() + ", maxLocals=" + maxLocals
+				+ ", maxStack=" + maxStack + " ]";
+	}
+}
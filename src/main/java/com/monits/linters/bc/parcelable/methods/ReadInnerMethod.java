@@ -15,12 +15,12 @@ package com.monits.linters.bc.parcelable.methods;
 
 import javax.annotation.Nonnull;
 
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.tree.ClassNode;
 
-import com.android.tools.lint.detector.api.ClassContext;
-import com.monits.linters.bc.parcelable.models.QueueManager;
+import com.monits.linters.bc.parcelable.models.MethodIndex;
+import com.monits.linters.bc.parcelable.models.MethodSummaryCache;
+import com.monits.linters.bc.parcelable.models.ParcelEventLog;
 import com.monits.linters.bc.parcelable.visitors.ParcelConstructorMethodVisitor;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -36,19 +36,18 @@ public class ReadInnerMethod extends AbstractInnerMethod {
 	 *
 	 * @param api The api for {@link #methodVisitor}
 	 * @param classNode The class node for {@link #methodVisitor}
-	 * @param methodName This class method name
-	 * @param desc The desc for {@link #methodVisitor}
-	 * @param context The context for {@link #methodVisitor}
-	 * @param cr The class reader for {@link #methodVisitor}
-	 * @param queueManager The queue manager for {@link #methodVisitor}
+	 * @param methods The method index for {@link #methodVisitor}
+	 * @param methodIndex The index of this class method
+	 * @param eventLog The event log for {@link #methodVisitor}
+	 * @param summaryCache The inner methods cache for {@link #methodVisitor}
 	 */
 	public ReadInnerMethod(final int api,
-			@Nonnull final ClassNode classNode, @Nonnull final String methodName,
-			@Nonnull final String desc, @Nonnull final ClassContext context,
-			@Nonnull final ClassReader cr, @Nonnull final QueueManager queueManager) {
-		super(methodName);
+			@Nonnull final ClassNode classNode, @Nonnull final MethodIndex methods,
+			final int methodIndex, @Nonnull final ParcelEventLog eventLog,
+			@Nonnull final MethodSummaryCache summaryCache) {
+		super(methods.getMethod(methodIndex).name);
 		methodVisitor = new ParcelConstructorMethodVisitor(api, classNode,
-				methodName, desc, context, cr, queueManager);
+				methods, methodIndex, eventLog, summaryCache);
 	}
 
 	@Nonnull
@@ -0,0 +1,91 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable.models;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Index of the methods declared by a class, keyed by name and descriptor.
+ * It's built once per class and shared by all the Parcel visitors.
+ */
+public class MethodIndex {
+	/** Index returned for methods not declared in the class */
+	public static final int NOT_FOUND = -1;
+
+	private final List<MethodNode> methods;
+	private final Map<String, Integer> indexes;
+
+	/**
+	 * Creates a new MethodIndex instance.
+	 *
+	 * @param classNode The class whose methods to index
+	 */
+	public MethodIndex(@Nonnull final ClassNode classNode) {
+		methods = classNode.methods;
+		indexes = new HashMap<>(methods.size() * 2);
+		for (int i = 0; i < methods.size(); i++) {
+			final MethodNode method = methods.get(i);
+			indexes.put(getKey(method.name, method.desc), i);
+		}
+	}
+
+	/**
+	 * Retrieves the position of a method in the class methods
+	 *
+	 * @param name The method's name
+	 * @param desc The method's descriptor
+	 * @return The index of the method, or {@link #NOT_FOUND}
+	 */
+	public int indexOf(@Nonnull final String name, @Nonnull final String desc) {
+		final Integer index = indexes.get(getKey(name, desc));
+		return index == null ? NOT_FOUND : index;
+	}
+
+	/**
+	 * Retrieves a method declared in the class
+	 *
+	 * @param index The index of the method
+	 * @return The method, or null if the index is {@link #NOT_FOUND}
+	 */
+	@CheckForNull
+	public MethodNode getMethod(final int index) {
+		return index == NOT_FOUND ? null : methods.get(index);
+	}
+
+	/**
+	 * @return The number of methods declared by the class
+	 */
+	public int size() {
+		return methods.size();
+	}
+
+	@Nonnull
+	private static String getKey(@Nonnull final String name, @Nonnull final String desc) {
+		// The descriptor always starts with '(', so there is no ambiguity
+		return name + desc;
+	}
+
+	@Override
+	public String toString() {
+		return "MethodIndex [ methods=" + methods.size() + " ]";
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable.models;
+
+import java.util.Arrays;
+
+/**
+ * Per class cache of the events produced by each helper method. Every helper is
+ * analyzed once, the range of the {@link ParcelEventLog} it produced is then
+ * copied at every other call site.
+ */
+public class MethodSummaryCache {
+	private static final int NOT_ANALYZED = -1;
+	private static final int IN_PROGRESS = -2;
+
+	private final int[] starts;
+	private final int[] ends;
+
+	/**
+	 * Creates a new MethodSummaryCache instance.
+	 *
+	 * @param methodCount The number of methods declared in the class
+	 */
+	public MethodSummaryCache(final int methodCount) {
+		starts = new int[methodCount];
+		ends = new int[methodCount];
+		Arrays.fill(ends, NOT_ANALYZED);
+	}
+
+	/**
+	 * Checks if a method was already analyzed
+	 *
+	 * @param methodIndex The index of the method
+	 * @return true if the method summary is available
+	 */
+	public boolean isSummarized(final int methodIndex) {
+		return ends[methodIndex] >= 0;
+	}
+
+	/**
+	 * Marks the given method as being analyzed.
+	 *
+	 * @param methodIndex The index of the method about to be analyzed
+	 * @param start The index in the event log of the first event of the method
+	 * @return false if the method is already being analyzed, meaning this is a recursive call
+	 */
+	public boolean beginSummary(final int methodIndex, final int start) {
+		if (ends[methodIndex] == IN_PROGRESS) {
+			return false;
+		}
+		starts[methodIndex] = start;
+		ends[methodIndex] = IN_PROGRESS;
+		return true;
+	}
+
+	/**
+	 * Stores the summary of a method whose analysis is done.
+	 *
+	 * @param methodIndex The index of the analyzed method
+	 * @param end The index in the event log after the last event of the method
+	 */
+	public void endSummary(final int methodIndex, final int end) {
+		ends[methodIndex] = end;
+	}
+
+	public int getSummaryStart(final int methodIndex) {
+		return starts[methodIndex];
+	}
+
+	public int getSummaryEnd(final int methodIndex) {
+		return ends[methodIndex];
+	}
+
+	@Override
+	public String toString() {
+		return "MethodSummaryCache [ methods=" + ends.length + " ]";
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable.models;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Summary of the Parcel traffic of a single class, as seen in its writeToParcel
+ * method and its Parcel constructor. Calls to the super class are kept apart,
+ * so they can be resolved against the super class summary.
+ */
+public class ParcelClassSummary {
+	private final String superName;
+	private final ParcelFieldSequence writeFields;
+	private final ParcelFieldSequence readFields;
+	private final boolean writes;
+	private final boolean reads;
+	private final boolean callsSuperWrite;
+	private final boolean callsSuperRead;
+
+	/**
+	 * Creates a new ParcelClassSummary instance.
+	 *
+	 * @param superName The internal name of the super class
+	 * @param writeFields The fields written, including calls to the super class
+	 * @param readFields The fields read, including calls to the super class
+	 * @param writes Whether the class writes anything to the Parcel by itself
+	 * @param reads Whether the class reads anything from the Parcel by itself
+	 * @param callsSuperWrite Whether writeToParcel calls the super method
+	 * @param callsSuperRead Whether the Parcel constructor calls the super constructor
+	 */
+	public ParcelClassSummary(@Nullable final String superName, @Nonnull final ParcelFieldSequence writeFields,
+			@Nonnull final ParcelFieldSequence readFields, final boolean writes, final boolean reads,
+			final boolean callsSuperWrite, final boolean callsSuperRead) {
+		this.superName = superName;
+		this.writeFields = writeFields;
+		this.readFields = readFields;
+		this.writes = writes;
+		this.reads = reads;
+		this.callsSuperWrite = callsSuperWrite;
+		this.callsSuperRead = callsSuperRead;
+	}
+
+	@CheckForNull
+	public String getSuperName() {
+		return superName;
+	}
+
+	/**
+	 * Retrieves the fields handled by the class itself in one direction
+	 *
+	 * @param kind {@link ParcelEventLog#WRITE_FIELD} or {@link ParcelEventLog#READ_FIELD}
+	 * @return The fields written or read, including calls to the super class
+	 */
+	@Nonnull
+	public ParcelFieldSequence getFields(final int kind) {
+		return kind == ParcelEventLog.WRITE_FIELD ? writeFields : readFields;
+	}
+
+	/**
+	 * Checks if the class by itself writes or reads anything from the Parcel
+	 *
+	 * @param kind {@link ParcelEventLog#WRITE_FIELD} or {@link ParcelEventLog#READ_FIELD}
+	 * @return true if the class uses the Parcel in the given direction
+	 */
+	public boolean usesParcel(final int kind) {
+		return kind == ParcelEventLog.WRITE_FIELD ? writes : reads;
+	}
+
+	/**
+	 * Checks if the class delegates to the super class in one direction
+	 *
+	 * @param kind {@link ParcelEventLog#WRITE_FIELD} or {@link ParcelEventLog#READ_FIELD}
+	 * @return true if writeToParcel or the Parcel constructor call the super class
+	 */
+	public boolean callsSuper(final int kind) {
+		return kind == ParcelEventLog.WRITE_FIELD ? callsSuperWrite : callsSuperRead;
+	}
+
+	@Override
+	public String toString() {
+		return "ParcelClassSummary [ superName=" + superName + ", writeFields=" + writeFields
+				+ ", readFields=" + readFields + ", writes=" + writes + ", reads=" + reads
+				+ ", callsSuperWrite=" + callsSuperWrite + ", callsSuperRead=" + callsSuperRead + " ]";
+	}
+}
@@ -0,0 +1,222 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Compact log of the fields and Parcel methods used while writing and reading
+ * a Parcelable. Events are stored column wise in primitive arrays, with names
+ * and descriptors interned as ints, so recording an event allocates nothing.
+ */
+public class ParcelEventLog {
+	/** A field written to the Parcel */
+	public static final int WRITE_FIELD = 0;
+	/** A field read from the Parcel */
+	public static final int READ_FIELD = 1;
+	/** A Parcel method called to write */
+	public static final int WRITE_METHOD = 2;
+	/** A Parcel method called to read */
+	public static final int READ_METHOD = 3;
+
+	/** Descriptor id of events with no descriptor */
+	public static final int NO_DESC = -1;
+	/** Id of symbols never recorded in the log */
+	public static final int NO_SYMBOL = -1;
+
+	private static final int INITIAL_CAPACITY = 32;
+
+	private int[] kinds;
+	private int[] names;
+	private int[] descs;
+	private int[] lines;
+	private int[] methodIndexes;
+	private int size;
+
+	private final Map<String, Integer> symbolIds;
+	private final List<String> symbols;
+
+	/**
+	 * Creates a new, empty, ParcelEventLog instance.
+	 */
+	public ParcelEventLog() {
+		kinds = new int[INITIAL_CAPACITY];
+		names = new int[INITIAL_CAPACITY];
+		descs = new int[INITIAL_CAPACITY];
+		lines = new int[INITIAL_CAPACITY];
+		methodIndexes = new int[INITIAL_CAPACITY];
+		symbolIds = new HashMap<>();
+		symbols = new ArrayList<>();
+	}
+
+	/**
+	 * Appends a new event to the log
+	 *
+	 * @param kind The kind of event, one of {@link #WRITE_FIELD}, {@link #READ_FIELD},
+	 * 		{@link #WRITE_METHOD} or {@link #READ_METHOD}
+	 * @param name The name of the field or method
+	 * @param desc The descriptor of the field, or null for methods
+	 * @param line The line where the event happened
+	 * @param methodIndex The index of the method container in the class methods
+	 */
+	public void add(final int kind, @Nonnull final String name, @Nullable final String desc,
+			final int line, final int methodIndex) {
+		ensureCapacity(size + 1);
+		kinds[size] = kind;
+		names[size] = intern(name);
+		descs[size] = desc == null ? NO_DESC : intern(desc);
+		lines[size] = line;
+		methodIndexes[size] = methodIndex;
+		size++;
+	}
+
+	/**
+	 * Appends a copy of a range of events already in the log
+	 *
+	 * @param start The index of the first event to copy, inclusive
+	 * @param end The index of the last event to copy, exclusive
+	 */
+	public void addRange(final int start, final int end) {
+		final int length = end - start;
+		ensureCapacity(size + length);
+		System.arraycopy(kinds, start, kinds, size, length);
+		System.arraycopy(names, start, names, size, length);
+		System.arraycopy(descs, start, descs, size, length);
+		System.arraycopy(lines, start, lines, size, length);
+		System.arraycopy(methodIndexes, start, methodIndexes, size, length);
+		size += length;
+	}
+
+	/**
+	 * Removes all events, keeping the allocated storage to be reused
+	 */
+	public void clear() {
+		size = 0;
+		symbolIds.clear();
+		symbols.clear();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getKind(final int event) {
+		return kinds[event];
+	}
+
+	public int getNameId(final int event) {
+		return names[event];
+	}
+
+	public int getDescId(final int event) {
+		return descs[event];
+	}
+
+	@Nonnull
+	public String getName(final int event) {
+		return symbols.get(names[event]);
+	}
+
+	@CheckForNull
+	public String getDesc(final int event) {
+		return descs[event] == NO_DESC ? null : symbols.get(descs[event]);
+	}
+
+	/**
+	 * Retrieves the id of a name or descriptor, without recording it
+	 *
+	 * @param symbol The name or descriptor to look up
+	 * @return The id of the symbol, or {@link #NO_SYMBOL} if no event uses it
+	 */
+	public int getSymbolId(@Nonnull final String symbol) {
+		final Integer id = symbolIds.get(symbol);
+		return id == null ? NO_SYMBOL : id;
+	}
+
+	public int getLine(final int event) {
+		return lines[event];
+	}
+
+	public int getMethodIndex(final int event) {
+		return methodIndexes[event];
+	}
+
+	/**
+	 * Counts the events of a given kind
+	 *
+	 * @param kind The kind of the events to count
+	 * @return The number of events of the given kind
+	 */
+	public int count(final int kind) {
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (kinds[i] == kind) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Retrieves the position of the events of a given kind
+	 *
+	 * @param kind The kind of the events to retrieve
+	 * @return The index of each event of the given kind, in order
+	 */
+	@Nonnull
+	public int[] getEvents(final int kind) {
+		final int[] events = new int[count(kind)];
+		int j = 0;
+		for (int i = 0; i < size; i++) {
+			if (kinds[i] == kind) {
+				events[j++] = i;
+			}
+		}
+		return events;
+	}
+
+	private int intern(@Nonnull final String symbol) {
+		Integer id = symbolIds.get(symbol);
+		if (id == null) {
+			id = symbols.size();
+			symbolIds.put(symbol, id);
+			symbols.add(symbol);
+		}
+		return id;
+	}
+
+	private void ensureCapacity(final int capacity) {
+		if (capacity > kinds.length) {
+			final int newCapacity = Math.max(capacity, kinds.length * 2);
+			kinds = Arrays.copyOf(kinds, newCapacity);
+			names = Arrays.copyOf(names, newCapacity);
+			descs = Arrays.copyOf(descs, newCapacity);
+			lines = Arrays.copyOf(lines, newCapacity);
+			methodIndexes = Arrays.copyOf(methodIndexes, newCapacity);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ParcelEventLog [ size=" + size + ", symbols=" + symbols.size() + " ]";
+	}
+}
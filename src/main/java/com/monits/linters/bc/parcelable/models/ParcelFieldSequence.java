@@ -0,0 +1,125 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable.models;
+
+import java.util.Arrays;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.monits.linters.bc.parcelable.visitors.AbstractMethodVisitor;
+
+/**
+ * The fields written or read by a class, in order, identified by name and descriptor.
+ * Calls to the super class are kept as a {@link AbstractMethodVisitor#THIS} field
+ * until they are expanded with the sequence of the super class.
+ */
+public class ParcelFieldSequence {
+	public static final ParcelFieldSequence EMPTY = new ParcelFieldSequence(new String[0], new String[0]);
+
+	private final String[] names;
+	private final String[] descs;
+
+	private ParcelFieldSequence(@Nonnull final String[] names, @Nonnull final String[] descs) {
+		this.names = names;
+		this.descs = descs;
+	}
+
+	/**
+	 * Creates the sequence of the fields recorded in an event log
+	 *
+	 * @param eventLog The events of the class
+	 * @param kind The direction of the sequence, {@link ParcelEventLog#WRITE_FIELD}
+	 * 		or {@link ParcelEventLog#READ_FIELD}
+	 * @return The fields of the given kind, in order
+	 */
+	@Nonnull
+	public static ParcelFieldSequence of(@Nonnull final ParcelEventLog eventLog, final int kind) {
+		final int[] events = eventLog.getEvents(kind);
+		if (events.length == 0) {
+			return EMPTY;
+		}
+
+		final String[] names = new String[events.length];
+		final String[] descs = new String[events.length];
+		for (int i = 0; i < events.length; i++) {
+			names[i] = eventLog.getName(events[i]);
+			descs[i] = eventLog.getDesc(events[i]);
+		}
+		return new ParcelFieldSequence(names, descs);
+	}
+
+	/**
+	 * Replaces every super call with the fields handled by the super class
+	 *
+	 * @param inherited The sequence of the super class, already expanded
+	 * @return The sequence with no super calls left
+	 */
+	@Nonnull
+	public ParcelFieldSequence expandSuperCalls(@Nonnull final ParcelFieldSequence inherited) {
+		int superCalls = 0;
+		for (int i = 0; i < names.length; i++) {
+			if (isSuperCall(i)) {
+				superCalls++;
+			}
+		}
+		if (superCalls == 0) {
+			return this;
+		}
+
+		final int length = names.length + superCalls * (inherited.size() - 1);
+		final String[] expandedNames = new String[length];
+		final String[] expandedDescs = new String[length];
+		int j = 0;
+		for (int i = 0; i < names.length; i++) {
+			if (isSuperCall(i)) {
+				System.arraycopy(inherited.names, 0, expandedNames, j, inherited.size());
+				System.arraycopy(inherited.descs, 0, expandedDescs, j, inherited.size());
+				j += inherited.size();
+			} else {
+				expandedNames[j] = names[i];
+				expandedDescs[j] = descs[i];
+				j++;
+			}
+		}
+		return new ParcelFieldSequence(expandedNames, expandedDescs);
+	}
+
+	public boolean isSuperCall(final int index) {
+		return AbstractMethodVisitor.THIS.equals(names[index]);
+	}
+
+	public int size() {
+		return names.length;
+	}
+
+	public boolean isEmpty() {
+		return names.length == 0;
+	}
+
+	@Nonnull
+	public String getName(final int index) {
+		return names[index];
+	}
+
+	@CheckForNull
+	public String getDesc(final int index) {
+		return descs[index];
+	}
+
+	@Override
+	public String toString() {
+		return "ParcelFieldSequence [ names=" + Arrays.toString(names) + " ]";
+	}
+}
@@ -13,66 +13,139 @@
  */
 package com.monits.linters.bc.parcelable.models;
 
-import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
+import javax.annotation.Nonnull;
 
+import com.google.common.collect.ImmutableMap;
 
+/**
+ * Immutable table of the Parcel read and write methods. Every method name is
+ * mapped to a small id, and the compatible write methods of each read method
+ * are kept as a bitmask, so every lookup is constant time.
+ */
 public enum ParcelMethodManager {
 	INSTANCE;
-	private Multimap<String, String> parcelableMethods;
+
+	/** The id of a name that is not a Parcel read or write method */
+	public static final int UNKNOWN = -1;
+
+	private final Map<String, Integer> readMethodIds;
+	private final Map<String, Integer> writeMethodIds;
+	private final long[] compatibleWrites;
 
 	private ParcelMethodManager() {
-		parcelableMethods = HashMultimap.create();
-		addMethods();
+		final String[][] pairs = getMethodPairs();
+		final Map<String, Integer> reads = new HashMap<>();
+		final Map<String, Integer> writes = new HashMap<>();
+		for (final String[] pair : pairs) {
+			if (!reads.containsKey(pair[0])) {
+				reads.put(pair[0], reads.size());
+			}
+			if (!writes.containsKey(pair[1])) {
+				writes.put(pair[1], writes.size());
+			}
+		}
+		if (writes.size() > Long.SIZE) {
+			throw new AssertionError("Too many write methods for the compatibility bitmask");
+		}
+
+		readMethodIds = ImmutableMap.copyOf(reads);
+		writeMethodIds = ImmutableMap.copyOf(writes);
+		compatibleWrites = new long[reads.size()];
+		for (final String[] pair : pairs) {
+			compatibleWrites[readMethodIds.get(pair[0])] |= 1L << writeMethodIds.get(pair[1]);
+		}
 	}
 
+	@Nonnull
 	@SuppressWarnings("checkstyle:multiplestringliterals")
-	private void addMethods() {
-		parcelableMethods.put("readArray", "writeArray");
-		parcelableMethods.put("readArrayList", "writeList");
-		parcelableMethods.put("readBinderArray", "writeBinderArray");
-		parcelableMethods.put("readBinderList", "writeBinderList");
-		parcelableMethods.put("readBooleanArray", "writeBooleanArray");
-		parcelableMethods.put("readBundle", "writeBundle");
-		parcelableMethods.put("readByte", "writeByte");
-		parcelableMethods.put("readByteArray", "writeByteArray");
-		parcelableMethods.put("readCharArray", "writeCharArray");
-		parcelableMethods.put("readDouble", "writeDouble");
-		parcelableMethods.put("readDoubleArray", "writeDoubleArray");
-		parcelableMethods.put("readException", "writeException");
-		parcelableMethods.put("readFileDescriptor", "writeFileDescriptor");
-		parcelableMethods.put("readFloat", "writeFloat");
-		parcelableMethods.put("readFloatArray", "writeFloatArray");
-		parcelableMethods.put("readHashMap", "writeMap");
-		parcelableMethods.put("readInt", "writeInt");
-		parcelableMethods.put("readIntArray", "writeIntArray");
-		parcelableMethods.put("readList", "writeList");
-		parcelableMethods.put("readLong", "writeLong");
-		parcelableMethods.put("readLongArray", "writeLongArray");
-		parcelableMethods.put("readMap", "writeMap");
-		parcelableMethods.put("readParcelable", "writeParcelable");
-		parcelableMethods.put("readParcelableArray", "writeParcelableArray");
-		parcelableMethods.put("readPersistableBundle", "writePersistableBundle");
-		parcelableMethods.put("readSerializable", "writeSerializable");
-		parcelableMethods.put("readSize", "writeSize");
-		parcelableMethods.put("readSizeF", "writeSizeF");
-		parcelableMethods.put("readSparseArray", "writeSparseArray");
-		parcelableMethods.put("readSparseBooleanArray", "writeSparseBooleanArray");
-		parcelableMethods.put("readString", "writeString");
-		parcelableMethods.put("readStringArray", "writeStringArray");
-		parcelableMethods.put("readStringList", "writeStringList");
-		parcelableMethods.put("readStrongBinder", "writeStrongBinder");
-		parcelableMethods.put("readStrongBinder", "writeInterfaceToken");
-		parcelableMethods.put("readStrongBinder", "writeStrongInterface");
-		parcelableMethods.put("readTypedArray", "writeTypedArray");
-		parcelableMethods.put("readTypedList", "writeTypedList");
-		parcelableMethods.put("readValue", "writeValue");
+	private static String[][] getMethodPairs() {
+		return new String[][] {
+			{ "readArray", "writeArray" },
+			{ "readArrayList", "writeList" },
+			{ "readBinderArray", "writeBinderArray" },
+			{ "readBinderList", "writeBinderList" },
+			{ "readBooleanArray", "writeBooleanArray" },
+			{ "readBundle", "writeBundle" },
+			{ "readByte", "writeByte" },
+			{ "readByteArray", "writeByteArray" },
+			{ "readCharArray", "writeCharArray" },
+			{ "readDouble", "writeDouble" },
+			{ "readDoubleArray", "writeDoubleArray" },
+			{ "readException", "writeException" },
+			{ "readFileDescriptor", "writeFileDescriptor" },
+			{ "readFloat", "writeFloat" },
+			{ "readFloatArray", "writeFloatArray" },
+			{ "readHashMap", "writeMap" },
+			{ "readInt", "writeInt" },
+			{ "readIntArray", "writeIntArray" },
+			{ "readList", "writeList" },
+			{ "readLong", "writeLong" },
+			{ "readLongArray", "writeLongArray" },
+			{ "readMap", "writeMap" },
+			{ "readParcelable", "writeParcelable" },
+			{ "readParcelableArray", "writeParcelableArray" },
+			{ "readPersistableBundle", "writePersistableBundle" },
+			{ "readSerializable", "writeSerializable" },
+			{ "readSize", "writeSize" },
+			{ "readSizeF", "writeSizeF" },
+			{ "readSparseArray", "writeSparseArray" },
+			{ "readSparseBooleanArray", "writeSparseBooleanArray" },
+			{ "readString", "writeString" },
+			{ "readStringArray", "writeStringArray" },
+			{ "readStringList", "writeStringList" },
+			{ "readStrongBinder", "writeStrongBinder" },
+			{ "readStrongBinder", "writeInterfaceToken" },
+			{ "readStrongBinder", "writeStrongInterface" },
+			{ "readTypedArray", "writeTypedArray" },
+			{ "readTypedList", "writeTypedList" },
+			{ "readValue", "writeValue" },
+		};
 	}
 
-	@Nonnull
-	public Multimap<String, String> getParcelableMethods() {
-		return parcelableMethods;
+	/**
+	 * Retrieves the id of a Parcel read method
+	 *
+	 * @param name The name of the method
+	 * @return The id of the method, or {@link #UNKNOWN} if it's not a read method
+	 */
+	public int getReadMethodId(@Nonnull final String name) {
+		final Integer id = readMethodIds.get(name);
+		return id == null ? UNKNOWN : id;
+	}
+
+	/**
+	 * Retrieves the id of a Parcel write method
+	 *
+	 * @param name The name of the method
+	 * @return The id of the method, or {@link #UNKNOWN} if it's not a write method
+	 */
+	public int getWriteMethodId(@Nonnull final String name) {
+		final Integer id = writeMethodIds.get(name);
+		return id == null ? UNKNOWN : id;
+	}
+
+	public boolean isReadMethod(@Nonnull final String name) {
+		return readMethodIds.containsKey(name);
+	}
+
+	public boolean isWriteMethod(@Nonnull final String name) {
+		return writeMethodIds.containsKey(name);
+	}
+
+	/**
+	 * Checks if the value written by a method can be read by another
+	 *
+	 * @param readMethodId The id of the read method
+	 * @param writeMethodId The id of the write method
+	 * @return true if both methods are known and compatible
+	 */
+	public boolean isCompatible(final int readMethodId, final int writeMethodId) {
+		if (readMethodId == UNKNOWN || writeMethodId == UNKNOWN) {
+			return false;
+		}
+		return (compatibleWrites[readMethodId] & 1L << writeMethodId) != 0;
 	}
 }
@@ -16,28 +16,23 @@ package com.monits.linters.bc.parcelable.visitors;
 import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
 import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
 
-import java.util.List;
-
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
 
-import com.android.tools.lint.detector.api.ClassContext;
 import com.monits.linters.bc.parcelable.methods.AbstractInnerMethod;
-import com.monits.linters.bc.parcelable.models.Method;
-import com.monits.linters.bc.parcelable.models.ParcelableField;
-import com.monits.linters.bc.parcelable.models.QueueManager;
+import com.monits.linters.bc.parcelable.models.MethodIndex;
+import com.monits.linters.bc.parcelable.models.MethodSummaryCache;
+import com.monits.linters.bc.parcelable.models.ParcelEventLog;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 @SuppressFBWarnings(value = "CD_CIRCULAR_DEPENDENCY",
-		justification = "This class must create a ParcelClassVisitor to visit"
+		justification = "This class must create an inner method visitor to visit"
 	+ " the class private method.")
 public abstract class AbstractMethodVisitor extends MethodVisitor {
 
@@ -54,37 +49,42 @@ public abstract class AbstractMethodVisitor extends MethodVisitor {
 			justification = "Field used for local validation")
 	private final String desc;
 
+	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
+			justification = "Field used for local validation")
+	private final int methodIndex;
+
 	@SuppressFBWarnings(value = "MISSING_FIELD_IN_TO_STRING",
 			justification = "Volatile field. Doesn't provide meaningful "
 			+ "value of class or instance")
 	private int line;
 	protected final ClassNode classNode;
-	protected final ClassContext context;
-	protected final ClassReader cr;
-	protected QueueManager queueManager;
+	protected final MethodIndex methods;
+	protected final ParcelEventLog eventLog;
+	protected final MethodSummaryCache summaryCache;
 
 	/**
 	 * Creates a new AbstractMethodVisitor instance
 	 *
 	 * @param api The api for {@link MethodVisitor}
 	 * @param classNode The class node that represents analyzed object's class
-	 * @param method The method's name
-	 * @param desc The desc used to call super
-	 * @param context The class context
-	 * @param cr The class reader that parses the class
-	 * @param queueManager The queue manager for methods invocation
+	 * @param methods The index of the methods of the class
+	 * @param methodIndex The index of the visited method
+	 * @param eventLog The log where to record fields and methods
+	 * @param summaryCache The cache of already analyzed inner methods
 	 */
 	public AbstractMethodVisitor(final int api, @Nonnull final ClassNode classNode,
-		@Nonnull final String method, @Nonnull final String desc,
-		@Nonnull final ClassContext context, @Nonnull final ClassReader cr,
-		@Nonnull final QueueManager queueManager) {
+		@Nonnull final MethodIndex methods, final int methodIndex,
+		@Nonnull final ParcelEventLog eventLog,
+		@Nonnull final MethodSummaryCache summaryCache) {
 		super(api);
 		this.classNode = classNode;
-		this.method = method;
-		this.desc = desc;
-		this.context = context;
-		this.cr = cr;
-		this.queueManager = queueManager;
+		this.methods = methods;
+		this.methodIndex = methodIndex;
+		final MethodNode methodNode = methods.getMethod(methodIndex);
+		method = methodNode.name;
+		desc = methodNode.desc;
+		this.eventLog = eventLog;
+		this.summaryCache = summaryCache;
 	}
 
 	@Override
@@ -96,9 +96,7 @@ public abstract class AbstractMethodVisitor extends MethodVisitor {
 	public void visitFieldInsn(final int opcode, @Nonnull final String owner,
 		@Nonnull final String name, @Nonnull final String desc) {
 		if (opcodeNeedsToBeHandled(opcode)) {
-			final ParcelableField field = new ParcelableField(name, desc,
-					context.getLocationForLine(line, null, null, null), getMethodContainer(method));
-			addFieldToQueue(field);
+			addFieldEvent(name, desc, line, methodIndex);
 		}
 	}
 
@@ -110,11 +108,9 @@ public abstract class AbstractMethodVisitor extends MethodVisitor {
 			handleInvokeSpecial(owner, name, desc);
 		} else if (INVOKEVIRTUAL == opcode) {
 			if (owner.equals(classNode.name)) {
-				cr.accept(new ParcelClassVisitor(api, classNode,
-					createInnerMethod(name, desc), context, queueManager, cr), 0);
+				visitInnerMethod(name, desc);
 			} else if (PARCELABLE_OWNER.equals(owner)) {
-				addMethodToQueue(new Method(name, context.getLocationForLine(line, null, null, null),
-						getMethodContainer(method)));
+				addMethodEvent(name, line, methodIndex);
 			}
 		}
 		super.visitMethodInsn(opcode, owner, name, desc, itf);
@@ -123,28 +119,38 @@ public abstract class AbstractMethodVisitor extends MethodVisitor {
 	private void handleInvokeSpecial(@Nonnull final String owner,
 		@Nonnull final String name, @Nonnull final String desc) {
 		if (needToCallSuper(owner, name, desc)) {
-			final ParcelableField field = new ParcelableField(THIS, owner,
-				context.getLocationForLine(line, null, null, null), getMethodContainer(method));
-			addFieldToQueue(field);
+			addFieldEvent(THIS, owner, line, methodIndex);
 		} else if (!name.equals(method)
 				&& owner.equals(classNode.name)) {
 			/*
 			 * The invoke special belongs to a private method
 			 */
-			cr.accept(new ParcelClassVisitor(api, classNode,
-					createInnerMethod(name, desc), context, queueManager, cr), 0);
+			visitInnerMethod(name, desc);
 		}
 	}
 
-	@Nullable
-	private MethodNode getMethodContainer(@Nonnull final String name) {
-		final List<MethodNode> methods = classNode.methods;
-		for (final MethodNode methodContainer : methods) {
-			if (methodContainer.name.equals(name)) {
-				return methodContainer;
-			}
+	/**
+	 * Add the fields and methods used by a method declared in the analyzed class.
+	 * Each inner method is visited only once, later calls copy the events it produced.
+	 *
+	 * @param name The name of the inner method
+	 * @param desc The descriptor of the inner method
+	 */
+	private void visitInnerMethod(@Nonnull final String name, @Nonnull final String desc) {
+		final int innerMethodIndex = methods.indexOf(name, desc);
+		if (innerMethodIndex == MethodIndex.NOT_FOUND) {
+			return;
+		}
+
+		if (summaryCache.isSummarized(innerMethodIndex)) {
+			eventLog.addRange(summaryCache.getSummaryStart(innerMethodIndex),
+					summaryCache.getSummaryEnd(innerMethodIndex));
+		} else if (summaryCache.beginSummary(innerMethodIndex, eventLog.size())) {
+			final MethodNode innerMethod = methods.getMethod(innerMethodIndex);
+			innerMethod.instructions.accept(createInnerMethod(innerMethodIndex).getMethodVisitor());
+			summaryCache.endSummary(innerMethodIndex, eventLog.size());
 		}
-		return null;
+		// else, it's a recursive call, the method is already being accounted for
 	}
 
 	/**
@@ -158,10 +164,28 @@ public abstract class AbstractMethodVisitor extends MethodVisitor {
 	 */
 	private boolean needToCallSuper(@Nonnull final String owner,
 		@Nonnull final String name, @Nonnull final String desc) {
-		return name.equals(method) && !owner.equals(classNode.name)
+		return isSuperCall(classNode, method, this.desc, owner, name, desc);
+	}
+
+	/**
+	 * Check if a method instruction calls the overridden method of the parcelable
+	 * parent class
+	 *
+	 * @param classNode The analyzed class
+	 * @param methodName The name of the method containing the instruction
+	 * @param methodDesc The desc of the method containing the instruction
+	 * @param owner The owner of the method instruction
+	 * @param name The name of the method instruction
+	 * @param desc The desc of the method instruction
+	 * @return if you are calling super or not
+	 */
+	public static boolean isSuperCall(@Nonnull final ClassNode classNode,
+			@Nonnull final String methodName, @Nonnull final String methodDesc,
+			@Nonnull final String owner, @Nonnull final String name, @Nonnull final String desc) {
+		return name.equals(methodName) && !owner.equals(classNode.name)
 			&& !OBJECT_CLASS.equals(classNode.superName)
 			&& !classNode.interfaces.contains(PARCELABLE_INTERFACE)
-			&& desc.equals(this.desc);
+			&& desc.equals(methodDesc);
 	}
 
 	/**
@@ -173,30 +197,34 @@ public abstract class AbstractMethodVisitor extends MethodVisitor {
 	public abstract boolean opcodeNeedsToBeHandled(final int opcode);
 
 	/**
-	 * Add the field in the write queue or in the read queue
+	 * Add a written or read field to the event log
 	 *
-	 * @param field The field that you must add into the queue
+	 * @param name The name of the field
+	 * @param desc The descriptor of the field
+	 * @param line The line where the field is used
+	 * @param methodIndex The index of the method using the field
 	 */
-	public abstract void addFieldToQueue(@Nonnull final ParcelableField field);
+	public abstract void addFieldEvent(@Nonnull final String name, @Nonnull final String desc,
+			final int line, final int methodIndex);
 
 	/**
-	 * Add the method in the write queue or in the read queue
+	 * Add a write or read Parcel method call to the event log
 	 *
-	 * @param method
-	 *            The method that you must add into the queue
+	 * @param name The name of the Parcel method
+	 * @param line The line where the method is called
+	 * @param methodIndex The index of the method calling the Parcel method
 	 */
-	public abstract void addMethodToQueue(@Nonnull final Method method);
+	public abstract void addMethodEvent(@Nonnull final String name, final int line,
+			final int methodIndex);
 
 	/**
 	 * Create a {@link WriteToParcelMethodVisitor} or a
 	 * {@link ParcelConstructorMethodVisitor} to visit the private
 	 * method of the class
 	 *
-	 * @param methodName The name of the private method
-	 * @param desc The descriptor of the private method
+	 * @param innerMethodIndex The index of the private method
 	 * @return The MethodVisitor for the private method
 	 */
 	@Nonnull
-	public abstract AbstractInnerMethod createInnerMethod(@Nonnull final String methodName,
-			@Nonnull final String desc);
+	public abstract AbstractInnerMethod createInnerMethod(final int innerMethodIndex);
 }
\ No newline at end of file
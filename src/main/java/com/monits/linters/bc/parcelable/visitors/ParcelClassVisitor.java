@@ -16,87 +16,106 @@ package com.monits.linters.bc.parcelable.visitors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 
-import com.android.tools.lint.detector.api.ClassContext;
-import com.monits.linters.bc.parcelable.methods.AbstractInnerMethod;
-import com.monits.linters.bc.parcelable.models.QueueManager;
+import com.monits.linters.bc.parcelable.dataflow.ParcelDataflowAnalyzer;
+import com.monits.linters.bc.parcelable.models.MethodIndex;
+import com.monits.linters.bc.parcelable.models.MethodSummaryCache;
+import com.monits.linters.bc.parcelable.models.ParcelEventLog;
 
-public class ParcelClassVisitor extends ClassVisitor {
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Walks the methods of a {@link ClassNode} already parsed by lint, feeding
+ * the instructions of writeToParcel and the Parcel constructor to their
+ * method visitors. The class file is never read again.
+ */
+@SuppressFBWarnings(value = "CD_CIRCULAR_DEPENDENCY",
+		justification = "The dataflow analyzer falls back to the method visitors of this package")
+public class ParcelClassVisitor {
 	private static final String PARCEL_CONSTRUCTOR_DESC = "(Landroid/os/Parcel;)V";
 	private static final String WRITE_TO_PARCEL_DESC = "(Landroid/os/Parcel;I)V";
 	private static final String WRITE_TO_PARCEL_METHOD = "writeToParcel";
 	private static final String CONSTRUCTOR = "<init>";
-	private final AbstractInnerMethod innerMethod;
+	private final int api;
 	private final ClassNode classNode;
-	private final ClassContext context;
-	private final ClassReader cr;
-	private final QueueManager queueManager;
-
-	/**
-	 * Creates a new ParcelClassVisitor instance, with
-	 * fewer parameters for automatic null setting of {@link #innerMethod}.
-	 *
-	 * @param api The api for {@link ClassVisitor}
-	 * @param classNode The class node that represents analyzed object's class
-	 * @param context The class context
-	 * @param queueManager The queue manager for methods invocation
-	 * @param classReader The class reader that parses the class
-	 */
-	public ParcelClassVisitor(final int api, @Nonnull final ClassNode classNode,
-		@Nonnull final ClassContext context, @Nonnull final QueueManager queueManager,
-		@Nonnull final ClassReader classReader) {
-		this(api, classNode, null, context, queueManager, classReader);
-	}
+	private final MethodIndex methods;
+	private final ParcelEventLog eventLog;
+	private final MethodSummaryCache writeSummaryCache;
+	private final MethodSummaryCache readSummaryCache;
+	private final ParcelDataflowAnalyzer dataflowAnalyzer;
 
 	/**
 	 * Creates a new ParcelClassVisitor instance.
 	 *
-	 * @param api The api for {@link ClassVisitor}
+	 * @param api The api for {@link MethodVisitor}
 	 * @param classNode The class node that represents analyzed class
-	 * @param innerMethod The inner method
-	 * @param context The class context
-	 * @param queueManager The queue manager for methods invocation
-	 * @param classReader The class reader that parses the class
+	 * @param eventLog The log where to record the Parcel fields and methods
+	 * @param dataflow Whether to follow the flow of values, instead of just matching field instructions
 	 */
 	public ParcelClassVisitor(final int api, @Nonnull final ClassNode classNode,
-		@Nullable final AbstractInnerMethod innerMethod, @Nonnull final ClassContext context,
-		@Nonnull final QueueManager queueManager, @Nonnull final ClassReader classReader) {
-		super(api);
+		@Nonnull final ParcelEventLog eventLog, final boolean dataflow) {
+		this.api = api;
 		this.classNode = classNode;
-		this.innerMethod = innerMethod;
-		this.context = context;
-		this.queueManager = queueManager;
-		cr = classReader;
+		methods = new MethodIndex(classNode);
+		this.eventLog = eventLog;
+		writeSummaryCache = new MethodSummaryCache(methods.size());
+		readSummaryCache = new MethodSummaryCache(methods.size());
+		dataflowAnalyzer = dataflow ? new ParcelDataflowAnalyzer(api, classNode, methods, eventLog,
+				writeSummaryCache, readSummaryCache, ParcelDataflowAnalyzer.getDefaultInstructionBudget()) : null;
 	}
 
-	@Override
-	public MethodVisitor visitMethod(final int access, @Nonnull final String name,
-		@Nonnull final String desc, @Nonnull final String signature,
-		@Nonnull final String[] exceptions) {
-		final MethodVisitor writeMv = new WriteToParcelMethodVisitor(api,
-			classNode, name, desc, context, cr, queueManager);
-		final MethodVisitor constructorMv = new ParcelConstructorMethodVisitor(
-			api, classNode, name, desc, context, cr, queueManager);
-		if (innerMethod == null) {
-			if (WRITE_TO_PARCEL_METHOD.equals(name)
-				&& WRITE_TO_PARCEL_DESC.equals(desc)) {
-				return writeMv;
-			} else if (CONSTRUCTOR.equals(name)
-				&& PARCEL_CONSTRUCTOR_DESC.equals(desc)) {
-				return constructorMv;
+	/**
+	 * Visit the instructions of every method of the class relevant to the Parcel
+	 */
+	public void visitClass() {
+		for (int i = 0; i < methods.size(); i++) {
+			final MethodNode method = methods.getMethod(i);
+			if (dataflowAnalyzer != null) {
+				analyzeDataflow(i, method.name, method.desc);
+			} else {
+				final MethodVisitor mv = getMethodVisitor(i, method.name, method.desc);
+				if (mv != null) {
+					method.instructions.accept(mv);
+				}
 			}
-		} else if (innerMethod.getMethodName().equals(name)) {
-			return innerMethod.getMethodVisitor();
+		}
+	}
+
+	@Nullable
+	private MethodVisitor getMethodVisitor(final int methodIndex, @Nonnull final String name,
+			@Nonnull final String desc) {
+		if (isWriteToParcel(name, desc)) {
+			return new WriteToParcelMethodVisitor(api,
+				classNode, methods, methodIndex, eventLog, writeSummaryCache);
+		} else if (isParcelConstructor(name, desc)) {
+			return new ParcelConstructorMethodVisitor(
+				api, classNode, methods, methodIndex, eventLog, readSummaryCache);
 		}
 		return null;
 	}
 
+	private void analyzeDataflow(final int methodIndex, @Nonnull final String name,
+			@Nonnull final String desc) {
+		if (isWriteToParcel(name, desc)) {
+			dataflowAnalyzer.analyzeWrite(methodIndex);
+		} else if (isParcelConstructor(name, desc)) {
+			dataflowAnalyzer.analyzeRead(methodIndex);
+		}
+	}
+
+	private static boolean isWriteToParcel(@Nonnull final String name, @Nonnull final String desc) {
+		return WRITE_TO_PARCEL_METHOD.equals(name) && WRITE_TO_PARCEL_DESC.equals(desc);
+	}
+
+	private static boolean isParcelConstructor(@Nonnull final String name, @Nonnull final String desc) {
+		return CONSTRUCTOR.equals(name) && PARCEL_CONSTRUCTOR_DESC.equals(desc);
+	}
+
 	@Override
 	public String toString() {
-		return "Parcel constructor method with " + innerMethod;
+		return "Parcel class visitor for " + classNode.name;
 	}
-}
\ No newline at end of file
+}
@@ -17,18 +17,15 @@ import static org.objectweb.asm.Opcodes.GETFIELD;
 
 import javax.annotation.Nonnull;
 
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.tree.ClassNode;
 
-import com.android.tools.lint.detector.api.ClassContext;
-import com.google.common.collect.Multimap;
 import com.monits.linters.bc.parcelable.methods.AbstractInnerMethod;
 import com.monits.linters.bc.parcelable.methods.WriteInnerMethod;
-import com.monits.linters.bc.parcelable.models.Method;
+import com.monits.linters.bc.parcelable.models.MethodIndex;
+import com.monits.linters.bc.parcelable.models.MethodSummaryCache;
+import com.monits.linters.bc.parcelable.models.ParcelEventLog;
 import com.monits.linters.bc.parcelable.models.ParcelMethodManager;
-import com.monits.linters.bc.parcelable.models.ParcelableField;
-import com.monits.linters.bc.parcelable.models.QueueManager;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -42,24 +39,24 @@ public class WriteToParcelMethodVisitor extends AbstractMethodVisitor {
 	 *
 	 * @param api The api for {@link MethodVisitor}
 	 * @param classNode The class node that represents analyzed object's class
-	 * @param method The method's name
-	 * @param desc The desc used to call super
-	 * @param context The class context
-	 * @param cr The class reader that parses the class
-	 * @param queueManager The queue manager for methods invocation
+	 * @param methods The index of the methods of the class
+	 * @param methodIndex The index of the visited method
+	 * @param eventLog The log where to record fields and methods
+	 * @param summaryCache The cache of already analyzed inner methods
 	 */
 
 	public WriteToParcelMethodVisitor(final int api,
-		@Nonnull final ClassNode classNode, @Nonnull final String method,
-		@Nonnull final String desc, @Nonnull final ClassContext context,
-		@Nonnull final ClassReader cr, @Nonnull final QueueManager queueManager) {
-		super(api, classNode, method, desc, context, cr, queueManager);
+		@Nonnull final ClassNode classNode, @Nonnull final MethodIndex methods,
+		final int methodIndex, @Nonnull final ParcelEventLog eventLog,
+		@Nonnull final MethodSummaryCache summaryCache) {
+		super(api, classNode, methods, methodIndex, eventLog, summaryCache);
 	}
 
 
 	@Override
-	public void addFieldToQueue(@Nonnull final ParcelableField field) {
-		queueManager.getWriteFieldQueue().offer(field);
+	public void addFieldEvent(@Nonnull final String name, @Nonnull final String desc,
+			final int line, final int methodIndex) {
+		eventLog.add(ParcelEventLog.WRITE_FIELD, name, desc, line, methodIndex);
 	}
 
 	@Override
@@ -68,18 +65,16 @@ public class WriteToParcelMethodVisitor extends AbstractMethodVisitor {
 	}
 
 	@Override
-	public void addMethodToQueue(@Nonnull final Method method) {
-		final Multimap<String, String> parcelableMethods = ParcelMethodManager.INSTANCE
-				.getParcelableMethods();
-		if (parcelableMethods.values().contains(method.getName())) {
-			queueManager.getWriteMethodQueue().add(method);
+	public void addMethodEvent(@Nonnull final String name, final int line,
+			final int methodIndex) {
+		if (ParcelMethodManager.INSTANCE.isWriteMethod(name)) {
+			eventLog.add(ParcelEventLog.WRITE_METHOD, name, null, line, methodIndex);
 		}
 	}
 
 	@Override
-	public AbstractInnerMethod createInnerMethod(@Nonnull final String methodName,
-			@Nonnull final String desc) {
-		return new WriteInnerMethod(api, classNode, methodName,
-				desc, context, cr, queueManager);
+	public AbstractInnerMethod createInnerMethod(final int innerMethodIndex) {
+		return new WriteInnerMethod(api, classNode, methods,
+				innerMethodIndex, eventLog, summaryCache);
 	}
 }
\ No newline at end of file
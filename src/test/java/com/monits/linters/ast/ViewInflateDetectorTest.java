@@ -203,6 +203,64 @@ public class ViewInflateDetectorTest extends AbstractTestCase {
 				.build()));
 	}
 	
+	public void testCustomViewInflateIsReported() throws Exception {
+		lintProject(
+			compile(
+				java("src/CustomView.java",
+					Joiner.on('\n').join(
+							"import android.content.Context;",
+							"import android.widget.LinearLayout;",
+							"public class CustomView extends LinearLayout {",
+							"	public CustomView(final Context context) {",
+							"		super(context);",
+							"	}",
+							"}"
+						)
+					),
+				java("src/ViewInflate.java",
+					Joiner.on('\n').join(
+							"public class ViewInflate {",
+							"	public void myMethod() {",
+							"		CustomView.inflate(null, 1, null);",
+							"	}",
+							"}"
+						)
+					)
+				));
+
+		assertThat("Failed to detect call to inflate on a custom View", getWarnings(),
+			Matchers.hasItem(new WarningMatcherBuilder()
+				.fileName("ViewInflate.java")
+				.line(3)
+				.message(ViewInflateDetector.VIEW_INFLATE_MSG)
+				.build()));
+	}
+	
+	public void testAdapterInflateIsNotReported() throws Exception {
+		lintProject(
+			compile(
+				java("src/MyAdapter.java",
+					Joiner.on('\n').join(
+							"import android.content.Context;",
+							"import android.widget.ArrayAdapter;",
+							"public class MyAdapter extends ArrayAdapter<String> {",
+							"	public MyAdapter(final Context context) {",
+							"		super(context, 0);",
+							"	}",
+							"	public void myMethod() {",
+							"		inflate(null, 1, null);",
+							"	}",
+							"	private static void inflate(final Object a, final int b, final Object c) {",
+							"	}",
+							"}"
+						)
+					)
+				));
+
+		assertThat("inflate detected on an Adapter, which is not a View", getWarnings(),
+			Matchers.empty());
+	}
+
 	public void testViewInflateNotReportedOnLollipop() throws Exception {
 		lintProject(
 			manifest().minSdk(21),
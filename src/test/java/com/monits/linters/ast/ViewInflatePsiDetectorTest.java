@@ -0,0 +1,179 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.ast;
+
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.hamcrest.Matchers;
+
+import com.android.tools.lint.detector.api.Detector;
+import com.android.tools.lint.detector.api.Issue;
+import com.google.common.base.Joiner;
+import com.monits.linters.test.AbstractTestCase;
+import com.monits.linters.test.matchers.WarningMatcherBuilder;
+
+public class ViewInflatePsiDetectorTest extends AbstractTestCase {
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		// Lint creates the detectors from the issue
+		ViewInflateDetector.VIEW_INFLATE_IGNORES_THEME.setImplementation(ViewInflatePsiDetector.IMPLEMENTATION);
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		ViewInflateDetector.VIEW_INFLATE_IGNORES_THEME.setImplementation(ViewInflateDetector.IMPLEMENTATION);
+		super.tearDown();
+	}
+
+	@Override
+	protected Detector getDetector() {
+		return new ViewInflatePsiDetector();
+	}
+
+	@Override
+	@Nonnull
+	protected List<Issue> getIssues() {
+		return Arrays.asList(ViewInflateDetector.VIEW_INFLATE_IGNORES_THEME);
+	}
+
+	@Override
+	protected boolean allowCompilationErrors() {
+		return true;
+	}
+
+	public void testViewInflateIsReported() throws Exception {
+		lintProject(
+			androidView(),
+			java("src/ViewInflate.java",
+				Joiner.on('\n').join(
+						"import android.view.View;",
+						"public class ViewInflate {",
+						"	public void myMethod() {",
+						"		View.inflate(null, 1, null);",
+						"	}",
+						"}"
+					)
+				));
+
+		assertThat("Failed to detect call to View.inflate", getWarnings(),
+			Matchers.hasItem(new WarningMatcherBuilder()
+				.fileName("ViewInflate.java")
+				.line(4)
+				.message(ViewInflateDetector.VIEW_INFLATE_MSG)
+				.build()));
+	}
+
+	public void testViewInflateStaticImportIsReported() throws Exception {
+		lintProject(
+			androidView(),
+			java("src/ViewInflateStaticImport.java",
+				Joiner.on('\n').join(
+						"import static android.view.View.inflate;",
+						"public class ViewInflateStaticImport {",
+						"	public void myMethod() {",
+						"		inflate(null, 1, null);",
+						"	}",
+						"}"
+					)
+				));
+
+		assertThat("Failed to detect call to View.inflate using static import", getWarnings(),
+			Matchers.hasItem(new WarningMatcherBuilder()
+				.fileName("ViewInflateStaticImport.java")
+				.line(4)
+				.message(ViewInflateDetector.VIEW_INFLATE_MSG)
+				.build()));
+	}
+
+	public void testCustomViewInflateIsReported() throws Exception {
+		lintProject(
+			androidView(),
+			java("src/CustomView.java",
+				Joiner.on('\n').join(
+						"import android.view.View;",
+						"public class CustomView extends View {",
+						"	public void myMethod() {",
+						"		inflate(null, 1, null);",
+						"	}",
+						"}"
+					)
+				));
+
+		assertThat("Failed to detect call to inflate on a custom View", getWarnings(),
+			Matchers.hasItem(new WarningMatcherBuilder()
+				.fileName("CustomView.java")
+				.line(4)
+				.message(ViewInflateDetector.VIEW_INFLATE_MSG)
+				.build()));
+	}
+
+	public void testOtherInflateNotReported() throws Exception {
+		lintProject(
+			androidView(),
+			java("src/Inflater.java",
+				Joiner.on('\n').join(
+						"public class Inflater {",
+						"	public static Object inflate(Object context, int resource, Object root) {",
+						"		return null;",
+						"	}",
+						"	public void myMethod() {",
+						"		inflate(null, 1, null);",
+						"	}",
+						"}"
+					)
+				));
+
+		assertThat("Reported an inflate call not resolving to View.inflate", getWarnings(),
+			Matchers.empty());
+	}
+
+	public void testViewInflateNotReportedOnLollipop() throws Exception {
+		lintProject(
+			manifest().minSdk(21),
+			androidView(),
+			java("src/ViewInflate.java",
+				Joiner.on('\n').join(
+						"import android.view.View;",
+						"public class ViewInflate {",
+						"	public void myMethod() {",
+						"		View.inflate(null, 1, null);",
+						"	}",
+						"}"
+					)
+				));
+
+		assertThat("View.inflate detected even when targeting lollpop", getWarnings(),
+			Matchers.empty());
+	}
+
+	private TestFile androidView() {
+		return java("src/android/view/View.java",
+			Joiner.on('\n').join(
+					"package android.view;",
+					"public class View {",
+					"	public static View inflate(Object context, int resource, Object root) {",
+					"		return null;",
+					"	}",
+					"}"
+				)
+			);
+	}
+}
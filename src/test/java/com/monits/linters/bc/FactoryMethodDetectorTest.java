@@ -17,6 +17,7 @@ import static com.monits.linters.bc.FactoryMethodDetector.FACTORY_METHOD_ERROR_M
 import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -94,6 +95,36 @@ public class FactoryMethodDetectorTest extends AbstractTestCase {
 			.build()));
 	}
 
+	public void testBadFactoryMethodCallOfALibraryFragment() throws Exception {
+		final List<TestFile> masterFiles = new ArrayList<>();
+		final List<TestFile> libraryFiles = new ArrayList<>();
+		for (final TestFile compiled : compile(ANDROID_SUPPORT_V4_PATH,
+				file("factorymethod/BadLibraryFragmentCallInAnActivity.java.txt"
+						+ "=>src/BadLibraryFragmentCallInAnActivity.java",
+						"factorymethod/LibraryFragment.java.txt=>src/LibraryFragment.java"))) {
+			// The Fragment lives only in the library project, out of the class folders of the master one
+			if (compiled.targetRelativePath.contains("LibraryFragment.")) {
+				libraryFiles.add(compiled);
+			} else {
+				masterFiles.add(compiled);
+			}
+		}
+		masterFiles.add(source("project.properties", "android.library.reference.1=../LibraryProject\n"));
+		libraryFiles.add(source("project.properties", "android.library=true\n"));
+
+		checkLint(Arrays.asList(
+				getProjectDir("MasterProject", masterFiles.toArray(new TestFile[masterFiles.size()])),
+				getProjectDir("LibraryProject", libraryFiles.toArray(new TestFile[libraryFiles.size()]))));
+
+		assertThat("Failed while trying to check a missing factory method call of a Fragment in a library",
+			getWarnings(),
+			Matchers.contains(new WarningMatcherBuilder()
+			.fileName("BadLibraryFragmentCallInAnActivity.java")
+			.line(7)
+			.message(FACTORY_METHOD_ERROR_MESSAGE)
+			.build()));
+	}
+
 	public void testBadFactoryMethodCallInAFragmentFactory() throws Exception {
 		lintProject(
 			compile(ANDROID_SUPPORT_V4_PATH,
@@ -141,6 +172,33 @@ public class FactoryMethodDetectorTest extends AbstractTestCase {
 				getWarnings().isEmpty());
 	}
 
+	public void testGoodFactoryMethodReturningASupertype() throws Exception {
+		lintProject(
+			compile(ANDROID_SUPPORT_V4_PATH,
+				file("factorymethod/SupertypeFactoryFragment.java.txt=>src/SupertypeFactoryFragment.java")
+				));
+
+		assertTrue("There are unexpected warnings when checks a Factory Method returning a Fragment supertype",
+				getWarnings().isEmpty());
+	}
+
+	public void testBadFactoryMethodReturningASupertypeOfAnotherFragment() throws Exception {
+		lintProject(
+			compile(ANDROID_SUPPORT_V4_PATH,
+				file("factorymethod/SupertypeFactoryOfAnotherFragment.java.txt"
+						+ "=>src/SupertypeFactoryOfAnotherFragment.java",
+						"factorymethod/MyFragment.java.txt=>src/MyFragment.java")
+				));
+
+		assertThat("Failed while trying to check a Fragment supertype factory method creating another Fragment",
+			getWarnings(),
+			Matchers.contains(new WarningMatcherBuilder()
+			.fileName("SupertypeFactoryOfAnotherFragment.java")
+			.line(6)
+			.message(FACTORY_METHOD_ERROR_MESSAGE)
+			.build()));
+	}
+
 	public void testBadFactoryMethodCallWithAFragmentAsParam() throws Exception {
 		final TestFile myStringConfigFragment = java("src/MyStringConfigFragment.java",
 				"import android.app.Fragment;\n"
@@ -0,0 +1,67 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import java.util.Collections;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import junit.framework.TestCase;
+
+public class IndexedSubtypesTest extends TestCase {
+
+	private static final String OBJECT = "java/lang/Object";
+	private static final String FRAGMENT = "android/app/Fragment";
+	private static final Set<String> ROOTS = ImmutableSet.of(FRAGMENT);
+
+	private ClassPathIndex index;
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		index = new ClassPathIndex();
+		index.add(new ClassHeader("com/example/MyFragment", FRAGMENT, Collections.<String>emptyList()));
+		index.add(new ClassHeader("com/example/ChildFragment", "com/example/MyFragment",
+				Collections.<String>emptyList()));
+		index.add(new ClassHeader("com/example/Model", OBJECT, ImmutableList.of("java/io/Serializable")));
+		index.add(new ClassHeader("java/io/Serializable", OBJECT, Collections.<String>emptyList()));
+		index.add(new ClassHeader("com/example/MyActivity", "android/app/Activity",
+				Collections.<String>emptyList()));
+	}
+
+	public void testSubtypesAreResolved() {
+		final IndexedSubtypes subtypes = IndexedSubtypes.compute(index, ROOTS);
+
+		assertTrue("A direct subtype wasn't resolved", subtypes.isResolved("com/example/MyFragment"));
+		assertTrue("A direct subtype wasn't found", subtypes.contains("com/example/MyFragment"));
+		assertTrue("An indirect subtype wasn't resolved", subtypes.isResolved("com/example/ChildFragment"));
+		assertTrue("An indirect subtype wasn't found", subtypes.contains("com/example/ChildFragment"));
+	}
+
+	public void testTypesWithTheWholeHierarchyIndexedAreResolved() {
+		final IndexedSubtypes subtypes = IndexedSubtypes.compute(index, ROOTS);
+
+		assertTrue("A type with a complete hierarchy wasn't resolved", subtypes.isResolved("com/example/Model"));
+		assertFalse("A type not descending from the roots was found", subtypes.contains("com/example/Model"));
+	}
+
+	public void testTypesWithSupertypesOutOfTheIndexAreNotResolved() {
+		final IndexedSubtypes subtypes = IndexedSubtypes.compute(index, ROOTS);
+
+		assertFalse("A type with an unknown super class was resolved", subtypes.isResolved("com/example/MyActivity"));
+		assertFalse("A type out of the index was resolved", subtypes.isResolved("com/example/LibraryFragment"));
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.Nonnull;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+public class JarIndexCacheTest extends TestCase {
+
+	private static final String KEY = "library";
+	private static final String FRAGMENT = "com/example/MyFragment";
+	private static final String SUPER_FRAGMENT = "android/app/Fragment";
+	private static final String LISTENER = "com/example/Listener";
+	private static final String MODEL = "com/example/Model";
+	private static final String SERIALIZABLE = "java/io/Serializable";
+	private static final int VERSION_OFFSET = 4;
+	// The symbol count follows the magic number and version
+	private static final int HEADER_SIZE = 8;
+
+	private File tempDir;
+	private File jar;
+	private File indexFile;
+	private JarIndexCache cache;
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		tempDir = Files.createTempDir();
+		jar = new File(tempDir, "library.jar");
+		try (final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+			addClass(out, FRAGMENT, SUPER_FRAGMENT, LISTENER);
+			addClass(out, LISTENER, "java/lang/Object");
+			addClass(out, MODEL, "java/lang/Object", SERIALIZABLE, LISTENER);
+		}
+		final File cacheDir = new File(tempDir, "cache");
+		indexFile = new File(cacheDir, KEY + ".idx");
+		cache = new JarIndexCache(cacheDir);
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		delete(tempDir);
+		super.tearDown();
+	}
+
+	public void testIndexIsReadBack() throws IOException {
+		final List<ClassHeader> indexed = cache.getHeaders(jar, KEY);
+		assertTrue("The index wasn't stored", indexFile.isFile());
+
+		// Without the jar, only the index can provide the headers
+		assertTrue("Couldn't delete the jar", jar.delete());
+		final List<ClassHeader> read = cache.getHeaders(jar, KEY);
+
+		assertEquals("The index lost classes", indexed.size(), read.size());
+		for (int i = 0; i < indexed.size(); i++) {
+			assertHeaderEquals(indexed.get(i), read.get(i));
+		}
+		assertHeadersOfJar(read);
+	}
+
+	public void testTruncatedIndexIsRebuilt() throws IOException {
+		cache.getHeaders(jar, KEY);
+		try (final RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+			file.setLength(file.length() / 2);
+		}
+
+		assertHeadersOfJar(cache.getHeaders(jar, KEY));
+
+		// The rebuilt index replaces the truncated one
+		assertTrue("Couldn't delete the jar", jar.delete());
+		assertHeadersOfJar(cache.getHeaders(jar, KEY));
+	}
+
+	public void testIndexOfAnotherVersionIsReplaced() throws IOException {
+		cache.getHeaders(jar, KEY);
+		try (final RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+			file.seek(VERSION_OFFSET);
+			file.writeInt(Integer.MAX_VALUE);
+		}
+
+		assertHeadersOfJar(cache.getHeaders(jar, KEY));
+
+		// The index of the current version replaces the old one
+		assertTrue("Couldn't delete the jar", jar.delete());
+		assertHeadersOfJar(cache.getHeaders(jar, KEY));
+	}
+
+	public void testNegativeCountIsRebuilt() throws IOException {
+		cache.getHeaders(jar, KEY);
+		try (final RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+			file.seek(HEADER_SIZE);
+			file.writeInt(-1);
+		}
+
+		assertHeadersOfJar(cache.getHeaders(jar, KEY));
+	}
+
+	public void testOversizedCountIsRebuilt() throws IOException {
+		cache.getHeaders(jar, KEY);
+		try (final RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+			file.seek(HEADER_SIZE);
+			file.writeInt(Integer.MAX_VALUE);
+		}
+
+		assertHeadersOfJar(cache.getHeaders(jar, KEY));
+	}
+
+	public void testEmptyIndexIsRebuilt() throws IOException {
+		assertTrue("Couldn't create the cache folder", indexFile.getParentFile().mkdirs());
+		assertTrue("Couldn't create the index", indexFile.createNewFile());
+
+		assertHeadersOfJar(cache.getHeaders(jar, KEY));
+	}
+
+	private static void assertHeadersOfJar(@Nonnull final List<ClassHeader> headers) {
+		assertEquals("Unexpected number of classes", 3, headers.size());
+		for (final ClassHeader header : headers) {
+			if (FRAGMENT.equals(header.getName())) {
+				assertEquals("Wrong super class", SUPER_FRAGMENT, header.getSuperName());
+				assertEquals("Wrong interfaces", Arrays.asList(LISTENER), header.getInterfaces());
+			} else if (MODEL.equals(header.getName())) {
+				assertEquals("Wrong interfaces", Arrays.asList(SERIALIZABLE, LISTENER), header.getInterfaces());
+			} else {
+				assertEquals("Unexpected class", LISTENER, header.getName());
+			}
+		}
+	}
+
+	private static void assertHeaderEquals(@Nonnull final ClassHeader expected, @Nonnull final ClassHeader actual) {
+		assertEquals("Wrong class name", expected.getName(), actual.getName());
+		assertEquals("Wrong super class", expected.getSuperName(), actual.getSuperName());
+		assertEquals("Wrong interfaces", expected.getInterfaces(), actual.getInterfaces());
+	}
+
+	private static void addClass(@Nonnull final ZipOutputStream out, @Nonnull final String name,
+			@Nonnull final String superName, @Nonnull final String... interfaces) throws IOException {
+		final ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, name, null, superName, interfaces);
+		writer.visitEnd();
+		out.putNextEntry(new ZipEntry(name + ".class"));
+		out.write(writer.toByteArray());
+		out.closeEntry();
+	}
+
+	private static void delete(@Nonnull final File file) {
+		final File[] children = file.listFiles();
+		if (children != null) {
+			for (final File child : children) {
+				delete(child);
+			}
+		}
+		assertTrue("Couldn't delete " + file, file.delete());
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.hierarchy;
+
+import java.util.Collections;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+import junit.framework.TestCase;
+
+public class SubtypeMatcherTest extends TestCase {
+
+	private static final String FRAGMENT = "android/app/Fragment";
+	private static final String BASE_FRAGMENT = "com/example/BaseFragment";
+	private static final String MY_FRAGMENT = "com/example/MyFragment";
+	private static final String MODEL = "com/example/Model";
+	private static final Set<String> ROOTS = ImmutableSet.of(FRAGMENT);
+
+	private ClassPathIndex libraryClassPath;
+	private ClassPathIndex appClassPath;
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		// The library module can't see the base class the app module provides
+		libraryClassPath = new ClassPathIndex();
+		libraryClassPath.add(new ClassHeader(MY_FRAGMENT, BASE_FRAGMENT, Collections.<String>emptyList()));
+		libraryClassPath.add(new ClassHeader(MODEL, "java/lang/Object", Collections.<String>emptyList()));
+
+		appClassPath = new ClassPathIndex();
+		appClassPath.addAll(libraryClassPath);
+		appClassPath.add(new ClassHeader(BASE_FRAGMENT, FRAGMENT, Collections.<String>emptyList()));
+	}
+
+	public void testSubtypesAreMatched() {
+		final SubtypeMatcher matcher = new SubtypeMatcher(ROOTS);
+
+		assertTrue("A subtype wasn't matched", matcher.matches(new ClassHierarchy(), appClassPath, MY_FRAGMENT));
+	}
+
+	public void testCompleteNegativesAreRemembered() {
+		final SubtypeMatcher matcher = new SubtypeMatcher(ROOTS);
+
+		assertFalse("A type not descending from the roots was matched",
+				matcher.matches(new ClassHierarchy(), libraryClassPath, MODEL));
+		assertFalse("A type not descending from the roots was matched",
+				matcher.matches(new ClassHierarchy(), appClassPath, MODEL));
+		assertEquals("The known negative wasn't remembered", 0.5, matcher.getHitRatio(), 0);
+	}
+
+	public void testIncompleteNegativesAreNotRemembered() {
+		final SubtypeMatcher matcher = new SubtypeMatcher(ROOTS);
+
+		assertFalse("A type with an unresolved hierarchy was matched",
+				matcher.matches(new ClassHierarchy(), libraryClassPath, MY_FRAGMENT));
+		assertTrue("A type unresolved in another project wasn't matched",
+				matcher.matches(new ClassHierarchy(), appClassPath, MY_FRAGMENT));
+	}
+}
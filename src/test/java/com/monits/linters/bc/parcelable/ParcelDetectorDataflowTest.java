@@ -0,0 +1,41 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable;
+
+import com.monits.linters.bc.parcelable.dataflow.ParcelDataflowAnalyzer;
+
+/**
+ * Runs every {@link ParcelDetectorTest} with the dataflow mode enabled.
+ */
+public class ParcelDetectorDataflowTest extends ParcelDetectorTest {
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		// Lint creates its own detectors, so the mode is enabled as users do
+		System.setProperty(ParcelDataflowAnalyzer.ENABLED_PROPERTY, Boolean.TRUE.toString());
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		System.clearProperty(ParcelDataflowAnalyzer.ENABLED_PROPERTY);
+		super.tearDown();
+	}
+
+	public void testWriteThroughTernary() throws Exception {
+		lintProject(compile(file("WriteThroughTernary.java.txt=>src/WriteThroughTernary.java")));
+
+		assertTrue("There are some warnings", getWarnings().isEmpty());
+	}
+}
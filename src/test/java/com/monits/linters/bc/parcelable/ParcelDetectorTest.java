@@ -53,6 +53,18 @@ public class ParcelDetectorTest extends AbstractTestCase {
 					.build()));
 	}
 
+	public void testReadMoreVariables() throws Exception {
+		lintProject(compile(file("ReadMoreVariables.java.txt=>src/ReadMoreVariables.java")));
+
+		assertThat("Failed to report only the extra reading field",
+				getWarnings(),
+				Matchers.contains(new WarningMatcherBuilder()
+					.fileName("ReadMoreVariables.java")
+					.line(22)
+					.message(MISSING_OR_OUT_OF_ERROR_MESSAGE)
+					.build()));
+	}
+
 	public void testForgetCallingSuper() throws Exception {
 		lintProject(compile(file("ForgetCallingSuperClass.java.txt=>src/ForgetCallingSuperClass.java",
 			"SuperClass.java.txt=>src/SuperClass.java")));
@@ -72,6 +84,32 @@ public class ParcelDetectorTest extends AbstractTestCase {
 				.build())));
 	}
 
+	public void testForgetCallingSuperWithoutParcelTraffic() throws Exception {
+		lintProject(compile(file("ForgetCallingEmptySuperClass.java.txt=>src/ForgetCallingEmptySuperClass.java",
+			"EmptySuperClass.java.txt=>src/EmptySuperClass.java")));
+
+		assertTrue("There are some warnings", getWarnings().isEmpty());
+	}
+
+	public void testWriteSuperFieldsByHand() throws Exception {
+		lintProject(compile(file("WriteSuperFieldsByHand.java.txt=>src/WriteSuperFieldsByHand.java",
+			"ProtectedSuperClass.java.txt=>src/ProtectedSuperClass.java")));
+
+		assertTrue("There are some warnings", getWarnings().isEmpty());
+	}
+
+	public void testWriteSuperFieldsOutOfOrder() throws Exception {
+		lintProject(compile(file("WriteSuperFieldsOutOfOrder.java.txt=>src/WriteSuperFieldsOutOfOrder.java",
+			"ProtectedSuperClass.java.txt=>src/ProtectedSuperClass.java")));
+
+		assertThat("Failed to check the fields of the super class", getWarnings(),
+				Matchers.contains(new WarningMatcherBuilder()
+				.fileName("WriteSuperFieldsOutOfOrder.java")
+				.line(32)
+				.message(MISSING_OR_OUT_OF_ERROR_MESSAGE)
+				.build()));
+	}
+
 	public void testWriteOutOfOrder() throws Exception {
 		lintProject(compile(file("WriteOutOfOrder.java.txt=>src/WriteOutOfOrder.java")));
 
@@ -101,6 +139,18 @@ public class ParcelDetectorTest extends AbstractTestCase {
 		assertTrue("There are some warnings", getWarnings().isEmpty());
 	}
 
+	public void testNotParcelableClass() throws Exception {
+		lintProject(compile(file("NotParcelableClass.java.txt=>src/NotParcelableClass.java")));
+
+		assertTrue("There are some warnings", getWarnings().isEmpty());
+	}
+
+	public void testRecursiveHelperMethods() throws Exception {
+		lintProject(compile(file("RecursiveHelperMethods.java.txt=>src/RecursiveHelperMethods.java")));
+
+		assertTrue("There are some warnings", getWarnings().isEmpty());
+	}
+
 	public void testIgnoreWriteOutOfOrder() throws Exception {
 		lintProject(compile(file("IgnoreWriteOutOfOrder.java.txt=>src/IgnoreWriteOutOfOrder.java")));
 
@@ -0,0 +1,82 @@
+/**
+ *  Copyright 2010 - 2016 - Monits
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ *   file except in compliance with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software distributed under
+ *   the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF
+ *   ANY KIND, either express or implied. See the License for the specific language governing
+ *   permissions and limitations under the License.
+ */
+package com.monits.linters.bc.parcelable;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class SequenceAlignerTest extends TestCase {
+
+	private static final int SEQUENCE_LENGTH = 200;
+	private static final int EXTRA_KEY = 1000;
+
+	public void testFewDifferencesAreAligned() {
+		final int[] a = { 1, 2, 3, 4, 5 };
+		final int[] b = { 1, 3, 4, 6, 5 };
+		final int[] aMatches = new int[a.length];
+		final int[] bMatches = new int[b.length];
+
+		SequenceAligner.align(a, b, aMatches, bMatches);
+
+		assertTrue("The aligned sequences differ",
+				Arrays.equals(new int[] { 0, SequenceAligner.UNMATCHED, 1, 2, 4 }, aMatches));
+		assertTrue("The aligned sequences differ",
+				Arrays.equals(new int[] { 0, 2, 3, SequenceAligner.UNMATCHED, 4 }, bMatches));
+	}
+
+	public void testManyDifferencesStillAlignCommonKeys() {
+		final int[] a = new int[SEQUENCE_LENGTH];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = i;
+		}
+
+		// Every other key of a gets an extra key before it in b, way past the bounded diff
+		final int extraKeys = SequenceAligner.MAX_EDIT_DISTANCE + 36;
+		final int[] b = new int[SEQUENCE_LENGTH + extraKeys];
+		int j = 0;
+		for (int i = 0; i < a.length; i++) {
+			if (i % 2 == 0 && i / 2 < extraKeys) {
+				b[j++] = EXTRA_KEY + i;
+			}
+			b[j++] = a[i];
+		}
+		// And a pair of swapped keys, only one of them can be kept in order
+		b[j - 1] = a[SEQUENCE_LENGTH - 2];
+		b[j - 2] = a[SEQUENCE_LENGTH - 1];
+
+		final int[] aMatches = new int[a.length];
+		final int[] bMatches = new int[b.length];
+		SequenceAligner.align(a, b, aMatches, bMatches);
+
+		int unmatched = 0;
+		for (int i = 0; i < a.length; i++) {
+			if (aMatches[i] == SequenceAligner.UNMATCHED) {
+				unmatched++;
+			} else {
+				assertEquals("Keys matched out of place", a[i], b[aMatches[i]]);
+				assertEquals("Matches are not symmetric", i, bMatches[aMatches[i]]);
+			}
+		}
+		assertEquals("Only one of the swapped keys should be left unmatched", 1, unmatched);
+
+		int extraMatched = 0;
+		for (int k = 0; k < b.length; k++) {
+			if (b[k] >= EXTRA_KEY && bMatches[k] != SequenceAligner.UNMATCHED) {
+				extraMatched++;
+			}
+		}
+		assertEquals("Extra keys have no counterpart", 0, extraMatched);
+	}
+}